@@ -0,0 +1,128 @@
+package com.hive.udf.bench;
+
+import com.hive.udf.ArrayCount;
+import com.hive.udf.ArrayCountDistinct;
+import com.hive.udf.ArrayCountDistinctApprox;
+import com.hive.udf.ArrayFind;
+import com.hive.udf.ArrayMax;
+import com.hive.udf.ArrayMin;
+import com.hive.udf.ArrayShift;
+import com.hive.udf.ArrayUnique;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredJavaObject;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredObject;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.typeinfo.PrimitiveTypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per row cost of the UDFs which accept arrays of any comparable element type.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArrayBenchmark {
+    @Param({"array_count", "array_countd", "array_count_distinct_approx", "array_unique",
+            "array_max", "array_min", "array_find", "array_shift"})
+    public String udf;
+
+    @Param({"bigint", "string"})
+    public String elementType;
+
+    @Param({"JAVA", "WRITABLE", "LAZY"})
+    public BenchInputs.Kind kind;
+
+    @Param({"16", "1024", "65536"})
+    public int size;
+
+    @Param({"0.0", "0.1"})
+    public double nullRatio;
+
+    @Param({"1000"})
+    public int distinct;
+
+    private GenericUDF function;
+    private DeferredObject[][] args;
+    private int row;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchInputs.Column column = BenchInputs.column(kind, "array<" + elementType + ">",
+                BenchInputs.arrayRows(elementType, size, nullRatio, distinct, 42));
+
+        // a value which is in the middle of the value range, used by array_find and array_shift
+        PrimitiveTypeInfo valueType;
+        Object value;
+        if ("bigint".equals(elementType)) {
+            valueType = TypeInfoFactory.longTypeInfo;
+            value = new LongWritable(7919L * (distinct / 2));
+        } else {
+            valueType = TypeInfoFactory.stringTypeInfo;
+            value = new Text("user-" + (distinct / 2));
+        }
+        ObjectInspector valueOI = PrimitiveObjectInspectorFactory.getPrimitiveWritableConstantObjectInspector(
+                valueType, value);
+
+        ObjectInspector[] argOIs = new ObjectInspector[]{column.oi};
+        switch (udf) {
+            case "array_count":
+                function = new ArrayCount();
+                break;
+            case "array_countd":
+                function = new ArrayCountDistinct();
+                break;
+            case "array_count_distinct_approx":
+                function = new ArrayCountDistinctApprox();
+                break;
+            case "array_unique":
+                function = new ArrayUnique();
+                break;
+            case "array_max":
+                function = new ArrayMax();
+                break;
+            case "array_min":
+                function = new ArrayMin();
+                break;
+            case "array_find":
+                function = new ArrayFind();
+                argOIs = new ObjectInspector[]{column.oi, valueOI};
+                break;
+            default:
+                function = new ArrayShift();
+                argOIs = new ObjectInspector[]{column.oi, valueOI};
+        }
+        function.initialize(argOIs);
+
+        args = new DeferredObject[BenchInputs.ROWS][];
+        for (int i = 0; i < BenchInputs.ROWS; i++) {
+            args[i] = argOIs.length == 1
+                    ? new DeferredObject[]{column.rows[i]}
+                    : new DeferredObject[]{column.rows[i], new DeferredJavaObject(value)};
+        }
+    }
+
+    @Benchmark
+    public Object evaluate() throws Exception {
+        row = (row + 1) & (BenchInputs.ROWS - 1);
+        return function.evaluate(args[row]);
+    }
+}
@@ -0,0 +1,210 @@
+package com.hive.udf.bench;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredJavaObject;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredObject;
+import org.apache.hadoop.hive.serde.serdeConstants;
+import org.apache.hadoop.hive.serde2.SerDeException;
+import org.apache.hadoop.hive.serde2.SerDeUtils;
+import org.apache.hadoop.hive.serde2.lazybinary.LazyBinarySerDe;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils.ObjectInspectorCopyOption;
+import org.apache.hadoop.hive.serde2.objectinspector.StructField;
+import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoUtils;
+import org.apache.hadoop.io.BytesWritable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Generates benchmark inputs and exposes them through the object inspector kinds
+ * Hive hands to UDFs: standard java objects, standard writables, and LazyBinary
+ * objects deserialized from bytes (the representation of shuffled / spilled rows,
+ * which like ORC rows are read through non-standard inspectors).
+ */
+public final class BenchInputs {
+    /** Number of distinct rows cycled through by a benchmark. */
+    public static final int ROWS = 16;
+
+    public enum Kind {JAVA, WRITABLE, LAZY}
+
+    private BenchInputs() {
+    }
+
+    /**
+     * A column of ROWS values of one type, seen through one kind of object inspector.
+     */
+    public static final class Column {
+        public final ObjectInspector oi;
+        public final DeferredObject[] rows;
+
+        Column(ObjectInspector oi, DeferredObject[] rows) {
+            this.oi = oi;
+            this.rows = rows;
+        }
+    }
+
+    public static Column column(Kind kind, String typeName, List<Object> javaRows) throws SerDeException {
+        TypeInfo typeInfo = TypeInfoUtils.getTypeInfoFromTypeString(typeName);
+        ObjectInspector javaOI = TypeInfoUtils.getStandardJavaObjectInspectorFromTypeInfo(typeInfo);
+        DeferredObject[] rows = new DeferredObject[javaRows.size()];
+
+        switch (kind) {
+            case JAVA:
+                for (int i = 0; i < rows.length; i++) {
+                    rows[i] = new DeferredJavaObject(javaRows.get(i));
+                }
+                return new Column(javaOI, rows);
+            case WRITABLE:
+                for (int i = 0; i < rows.length; i++) {
+                    rows[i] = new DeferredJavaObject(ObjectInspectorUtils.copyToStandardObject(
+                            javaRows.get(i), javaOI, ObjectInspectorCopyOption.WRITABLE));
+                }
+                return new Column(TypeInfoUtils.getStandardWritableObjectInspectorFromTypeInfo(typeInfo), rows);
+            default:
+                ObjectInspector lazyOI = null;
+                for (int i = 0; i < rows.length; i++) {
+                    LazyBinaryRow row = new LazyBinaryRow(typeName, javaOI, javaRows.get(i));
+                    lazyOI = row.fieldOI;
+                    rows[i] = row;
+                }
+                return new Column(lazyOI, rows);
+        }
+    }
+
+    /**
+     * A single column row serialized with LazyBinarySerDe. Every get() deserializes
+     * the row again, so element access is measured on freshly initialized lazy objects
+     * as it is in a map or reduce task.
+     */
+    static final class LazyBinaryRow implements DeferredObject {
+        private final LazyBinarySerDe serde;
+        private final BytesWritable bytes;
+        private final StructObjectInspector rowOI;
+        private final StructField field;
+        final ObjectInspector fieldOI;
+
+        LazyBinaryRow(String typeName, ObjectInspector javaOI, Object value) throws SerDeException {
+            serde = new LazyBinarySerDe();
+            Properties props = new Properties();
+            props.setProperty(serdeConstants.LIST_COLUMNS, "c");
+            props.setProperty(serdeConstants.LIST_COLUMN_TYPES, typeName);
+            SerDeUtils.initializeSerDe(serde, new Configuration(), props, null);
+
+            StructObjectInspector standardRowOI = ObjectInspectorFactory.getStandardStructObjectInspector(
+                    Collections.singletonList("c"), Collections.singletonList(javaOI));
+            BytesWritable serialized = (BytesWritable) serde.serialize(Collections.singletonList(value), standardRowOI);
+            bytes = new BytesWritable();
+            bytes.set(serialized);  // the serde reuses its output buffer
+
+            rowOI = (StructObjectInspector) serde.getObjectInspector();
+            field = rowOI.getStructFieldRef("c");
+            fieldOI = field.getFieldObjectInspector();
+        }
+
+        /**
+         * Size of the serialized row in bytes.
+         */
+        int serializedSize() {
+            return bytes.getLength();
+        }
+
+        @Override
+        public void prepare(int version) throws HiveException {
+        }
+
+        @Override
+        public Object get() throws HiveException {
+            try {
+                return rowOI.getStructFieldData(serde.deserialize(bytes), field);
+            } catch (SerDeException e) {
+                throw new HiveException(e);
+            }
+        }
+    }
+
+    /**
+     * Average serialized size in bytes of the rows of a LAZY column.
+     */
+    public static double serializedSize(Column column) {
+        long bytes = 0;
+        for (DeferredObject row : column.rows) {
+            bytes += ((LazyBinaryRow) row).serializedSize();
+        }
+        return (double) bytes / column.rows.length;
+    }
+
+    /**
+     * Random element of a primitive type: bigint, int, double or string.
+     * Values are drawn from [0, distinct) so the number of distinct values is bounded.
+     */
+    public static Object randomElement(String elementType, int distinct, Random rnd) {
+        int v = rnd.nextInt(distinct);
+        switch (elementType) {
+            case "bigint":
+                return (long) v * 7919L;
+            case "int":
+                return v;
+            case "double":
+                return v * 0.25d;
+            default:
+                return "user-" + v;
+        }
+    }
+
+    public static List<Object> randomArray(String elementType, int size, double nullRatio, int distinct, Random rnd) {
+        List<Object> array = new ArrayList<Object>(size);
+        for (int i = 0; i < size; i++) {
+            array.add(rnd.nextDouble() < nullRatio ? null : randomElement(elementType, distinct, rnd));
+        }
+        return array;
+    }
+
+    /**
+     * Random map&lt;string, double&gt; with keys drawn from a key space of the given size.
+     */
+    public static Map<Object, Object> randomMap(int size, double nullRatio, int keySpace, Random rnd) {
+        Map<Object, Object> map = new HashMap<Object, Object>();
+        while (map.size() < Math.min(size, keySpace)) {
+            map.put("key-" + rnd.nextInt(keySpace), rnd.nextDouble() < nullRatio ? null : rnd.nextDouble() * 100);
+        }
+        return map;
+    }
+
+    public static List<Object> arrayRows(String elementType, int size, double nullRatio, int distinct, long seed) {
+        Random rnd = new Random(seed);
+        List<Object> rows = new ArrayList<Object>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(randomArray(elementType, size, nullRatio, distinct, rnd));
+        }
+        return rows;
+    }
+
+    public static List<Object> mapRows(int size, double nullRatio, int keySpace, long seed) {
+        Random rnd = new Random(seed);
+        List<Object> rows = new ArrayList<Object>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(randomMap(size, nullRatio, keySpace, rnd));
+        }
+        return rows;
+    }
+
+    public static List<Object> primitiveRows(String type, int count, double nullRatio, long seed) {
+        Random rnd = new Random(seed);
+        List<Object> rows = new ArrayList<Object>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(rnd.nextDouble() < nullRatio ? null : randomElement(type, Integer.MAX_VALUE, rnd));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,133 @@
+package com.hive.udf.bench;
+
+import com.hive.udf.CombineMaps;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDAFEvaluator;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDAFEvaluator.AggregationBuffer;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils.ObjectInspectorCopyOption;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Partial aggregations of combine_map as a reducer sees them: BenchInputs.ROWS partials
+ * serialized with LazyBinarySerDe and merged in FINAL mode. Compares the parallel array
+ * struct&lt;keys, sums&gt; partial, merged with one lookup per entry on the lazy key, with the
+ * map&lt;string, double&gt; partial and the merge used before (deep copy of every partial, then
+ * one hash update per entry). The serialized bytes per partial of both formats are reported
+ * as the secondary results structPartialBytes and mapPartialBytes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CombineMapsPartialBenchmark {
+    @Param({"16", "1024", "16384"})
+    public int size;
+
+    @Param({"0.0", "0.1"})
+    public double nullRatio;
+
+    @Param({"65536"})
+    public int keySpace;
+
+    private BenchInputs.Column structPartials;
+    private BenchInputs.Column mapPartials;
+
+    private GenericUDAFEvaluator finalEvaluator;
+    private AggregationBuffer finalAgg;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class PartialSize {
+        public double structPartialBytes;
+        public double mapPartialBytes;
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchInputs.Column maps = BenchInputs.column(BenchInputs.Kind.JAVA, "map<string,double>",
+                BenchInputs.mapRows(size, nullRatio, keySpace, 42));
+
+        // one struct partial per input map, as produced by the mappers
+        GenericUDAFEvaluator partial1 = new CombineMaps.Evaluator();
+        ObjectInspector partialOI = partial1.init(GenericUDAFEvaluator.Mode.PARTIAL1, new ObjectInspector[]{maps.oi});
+        List<Object> partials = new ArrayList<Object>(BenchInputs.ROWS);
+        for (int i = 0; i < BenchInputs.ROWS; i++) {
+            AggregationBuffer agg = partial1.getNewAggregationBuffer();
+            partial1.iterate(agg, new Object[]{maps.rows[i].get()});
+            partials.add(ObjectInspectorUtils.copyToStandardObject(
+                    partial1.terminatePartial(agg), partialOI, ObjectInspectorCopyOption.JAVA));
+        }
+        structPartials = BenchInputs.column(BenchInputs.Kind.LAZY, partialOI.getTypeName(), partials);
+
+        List<Object> mapRows = new ArrayList<Object>(BenchInputs.ROWS);
+        for (int i = 0; i < BenchInputs.ROWS; i++) {
+            mapRows.add(maps.rows[i].get());
+        }
+        mapPartials = BenchInputs.column(BenchInputs.Kind.LAZY, "map<string,double>", mapRows);
+
+        finalEvaluator = new CombineMaps.Evaluator();
+        finalEvaluator.init(GenericUDAFEvaluator.Mode.FINAL, new ObjectInspector[]{structPartials.oi});
+        finalAgg = finalEvaluator.getNewAggregationBuffer();
+    }
+
+    @Setup(Level.Iteration)
+    public void reportSizes(PartialSize partialSize) {
+        partialSize.structPartialBytes = BenchInputs.serializedSize(structPartials);
+        partialSize.mapPartialBytes = BenchInputs.serializedSize(mapPartials);
+    }
+
+    @Benchmark
+    public Object mergeStruct(PartialSize partialSize) throws Exception {
+        finalEvaluator.reset(finalAgg);
+        for (int i = 0; i < BenchInputs.ROWS; i++) {
+            finalEvaluator.merge(finalAgg, structPartials.rows[i].get());
+        }
+        return finalEvaluator.terminate(finalAgg);
+    }
+
+    /**
+     * The map partial merge as it was done before the struct format.
+     */
+    @Benchmark
+    public Object mergeMap(PartialSize partialSize) throws Exception {
+        Map<Object, Double> state = new HashMap<Object, Double>();
+        for (int i = 0; i < BenchInputs.ROWS; i++) {
+            Map<?, ?> partial = (Map<?, ?>) ObjectInspectorUtils.copyToStandardObject(
+                    mapPartials.rows[i].get(), mapPartials.oi);
+            for (Map.Entry<?, ?> e : partial.entrySet()) {
+                Object v = e.getValue();
+                if (v == null) {
+                    if (!state.containsKey(e.getKey())) {
+                        state.put(e.getKey(), null);
+                    }
+                } else if (state.containsKey(e.getKey()) && state.get(e.getKey()) != null) {
+                    state.put(e.getKey(), state.get(e.getKey()) + Double.parseDouble(v.toString()));
+                } else {
+                    state.put(e.getKey(), Double.parseDouble(v.toString()));
+                }
+            }
+        }
+        return state;
+    }
+}
@@ -0,0 +1,55 @@
+package com.hive.udf.bench;
+
+import com.hive.udf.GeoCircle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of geo_circle per row (GeoCircle is a plain UDF taking java strings).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeoCircleBenchmark {
+    @Param({"8", "36", "360"})
+    public int sides;
+
+    private final GeoCircle udf = new GeoCircle();
+    private String[][] rows;
+    private int row;
+
+    @Setup
+    public void setUp() {
+        Random rnd = new Random(42);
+        rows = new String[BenchInputs.ROWS][];
+        for (int i = 0; i < BenchInputs.ROWS; i++) {
+            rows[i] = new String[]{
+                    String.valueOf(rnd.nextDouble() * 120 - 60),
+                    String.valueOf(rnd.nextDouble() * 360 - 180),
+                    String.valueOf(50 + rnd.nextDouble() * 5000),
+                    String.valueOf(sides)};
+        }
+    }
+
+    @Benchmark
+    public String evaluate() throws Exception {
+        row = (row + 1) & (BenchInputs.ROWS - 1);
+        String[] r = rows[row];
+        return udf.evaluate(r[0], r[1], r[2], r[3]);
+    }
+}
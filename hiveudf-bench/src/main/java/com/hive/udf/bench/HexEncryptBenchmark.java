@@ -0,0 +1,78 @@
+package com.hive.udf.bench;
+
+import com.hive.udf.HexEncrypt;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredJavaObject;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredObject;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+import org.apache.hadoop.io.Text;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of hex_encrypt per uuid, with a literal or a per row key.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HexEncryptBenchmark {
+    private static final String KEY = "cc451dd1207b497b8658d805392a5df5";
+
+    @Param({"JAVA", "WRITABLE", "LAZY"})
+    public BenchInputs.Kind kind;
+
+    @Param({"true", "false"})
+    public boolean constantKey;
+
+    private final HexEncrypt udf = new HexEncrypt();
+    private DeferredObject[][] args;
+    private int row;
+
+    @Setup
+    public void setUp() throws Exception {
+        List<Object> values = new ArrayList<Object>();
+        List<Object> keys = new ArrayList<Object>();
+        for (int i = 0; i < BenchInputs.ROWS; i++) {
+            values.add(UUID.randomUUID().toString());
+            keys.add(KEY);
+        }
+        BenchInputs.Column column = BenchInputs.column(kind, "string", values);
+        BenchInputs.Column keyColumn = BenchInputs.column(kind, "string", keys);
+
+        ObjectInspector keyOI = constantKey
+                ? PrimitiveObjectInspectorFactory.getPrimitiveWritableConstantObjectInspector(
+                TypeInfoFactory.stringTypeInfo, new Text(KEY))
+                : keyColumn.oi;
+        udf.initialize(new ObjectInspector[]{column.oi, keyOI});
+
+        args = new DeferredObject[BenchInputs.ROWS][];
+        for (int i = 0; i < BenchInputs.ROWS; i++) {
+            args[i] = new DeferredObject[]{column.rows[i],
+                    constantKey ? new DeferredJavaObject(new Text(KEY)) : keyColumn.rows[i]};
+        }
+    }
+
+    @Benchmark
+    public Object evaluate() throws Exception {
+        row = (row + 1) & (BenchInputs.ROWS - 1);
+        return udf.evaluate(args[row]);
+    }
+}
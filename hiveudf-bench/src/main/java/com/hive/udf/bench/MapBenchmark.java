@@ -0,0 +1,120 @@
+package com.hive.udf.bench;
+
+import com.hive.udf.CombineMaps;
+import com.hive.udf.ScaleMap;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDAFEvaluator;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDAFEvaluator.AggregationBuffer;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredJavaObject;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredObject;
+import org.apache.hadoop.hive.serde2.io.DoubleWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of scale_map per row, and of combine_maps per group of BenchInputs.ROWS maps,
+ * both in a single COMPLETE aggregation and through terminatePartial / merge.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapBenchmark {
+    @Param({"JAVA", "WRITABLE", "LAZY"})
+    public BenchInputs.Kind kind;
+
+    @Param({"16", "1024", "16384"})
+    public int size;
+
+    @Param({"0.0", "0.1"})
+    public double nullRatio;
+
+    @Param({"65536"})
+    public int keySpace;
+
+    private BenchInputs.Column column;
+
+    private ScaleMap scaleMap;
+    private DeferredObject[][] scaleArgs;
+    private int row;
+
+    private GenericUDAFEvaluator complete;
+    private AggregationBuffer completeAgg;
+
+    private GenericUDAFEvaluator finalEvaluator;
+    private AggregationBuffer finalAgg;
+    private Object[] partials;
+
+    @Setup
+    public void setUp() throws Exception {
+        column = BenchInputs.column(kind, "map<string,double>", BenchInputs.mapRows(size, nullRatio, keySpace, 42));
+
+        scaleMap = new ScaleMap();
+        scaleMap.initialize(new ObjectInspector[]{column.oi,
+                PrimitiveObjectInspectorFactory.getPrimitiveWritableConstantObjectInspector(
+                        TypeInfoFactory.doubleTypeInfo, new DoubleWritable(0.01))});
+        scaleArgs = new DeferredObject[BenchInputs.ROWS][];
+        for (int i = 0; i < BenchInputs.ROWS; i++) {
+            scaleArgs[i] = new DeferredObject[]{column.rows[i], new DeferredJavaObject(null)};
+        }
+
+        complete = new CombineMaps.Evaluator();
+        complete.init(GenericUDAFEvaluator.Mode.COMPLETE, new ObjectInspector[]{column.oi});
+        completeAgg = complete.getNewAggregationBuffer();
+
+        // one partial per input map, as produced by the mappers
+        GenericUDAFEvaluator partial1 = new CombineMaps.Evaluator();
+        ObjectInspector partialOI = partial1.init(GenericUDAFEvaluator.Mode.PARTIAL1, new ObjectInspector[]{column.oi});
+        partials = new Object[BenchInputs.ROWS];
+        for (int i = 0; i < BenchInputs.ROWS; i++) {
+            AggregationBuffer agg = partial1.getNewAggregationBuffer();
+            partial1.iterate(agg, new Object[]{column.rows[i].get()});
+            partials[i] = ObjectInspectorUtils.copyToStandardObject(partial1.terminatePartial(agg), partialOI);
+        }
+
+        finalEvaluator = new CombineMaps.Evaluator();
+        finalEvaluator.init(GenericUDAFEvaluator.Mode.FINAL, new ObjectInspector[]{
+                ObjectInspectorUtils.getStandardObjectInspector(partialOI)});
+        finalAgg = finalEvaluator.getNewAggregationBuffer();
+    }
+
+    @Benchmark
+    public Object scaleMap() throws Exception {
+        row = (row + 1) & (BenchInputs.ROWS - 1);
+        return scaleMap.evaluate(scaleArgs[row]);
+    }
+
+    @Benchmark
+    public Object combineMaps() throws Exception {
+        complete.reset(completeAgg);
+        for (int i = 0; i < BenchInputs.ROWS; i++) {
+            complete.iterate(completeAgg, new Object[]{column.rows[i].get()});
+        }
+        return complete.terminate(completeAgg);
+    }
+
+    @Benchmark
+    public Object combineMapsMerge() throws Exception {
+        finalEvaluator.reset(finalAgg);
+        for (int i = 0; i < BenchInputs.ROWS; i++) {
+            finalEvaluator.merge(finalAgg, partials[i]);
+        }
+        return finalEvaluator.terminate(finalAgg);
+    }
+}
@@ -0,0 +1,147 @@
+package com.hive.udf.bench;
+
+import com.hive.udf.ArrayAvg;
+import com.hive.udf.ArrayMedian;
+import com.hive.udf.ArrayNullOutlier;
+import com.hive.udf.ArrayPercentile;
+import com.hive.udf.ArrayStats;
+import com.hive.udf.ArrayStd;
+import com.hive.udf.ArraySum;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredObject;
+import org.apache.hadoop.hive.serde2.io.DoubleWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per row cost of the UDFs over numeric arrays. The *_compensated variants measure the
+ * cost of the Kahan / Neumaier summation mode against the plain one. array_percentile selects
+ * the 0.99 percentile (quickselect), array_percentiles three percentiles at once (one sort).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NumericArrayBenchmark {
+    private static final ObjectInspector COMPENSATED =
+            PrimitiveObjectInspectorFactory.getPrimitiveWritableConstantObjectInspector(
+                    TypeInfoFactory.stringTypeInfo, new Text("compensated"));
+
+    @Param({"array_sum", "array_sum_compensated", "array_avg", "array_avg_compensated", "array_std", "array_stats",
+            "array_null_outlier", "array_median", "array_percentile", "array_percentiles"})
+    public String udf;
+
+    @Param({"bigint", "double"})
+    public String elementType;
+
+    @Param({"JAVA", "WRITABLE", "LAZY"})
+    public BenchInputs.Kind kind;
+
+    @Param({"16", "1024", "65536"})
+    public int size;
+
+    @Param({"0.0", "0.1"})
+    public double nullRatio;
+
+    private GenericUDF function;
+    private DeferredObject[][] args;
+    private int row;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchInputs.Column column = BenchInputs.column(kind, "array<" + elementType + ">",
+                BenchInputs.arrayRows(elementType, size, nullRatio, 1000, 42));
+
+        ObjectInspector[] argOIs;
+        Object literal = null;  // value of the literal arguments at evaluate()
+        switch (udf) {
+            case "array_sum":
+                function = new ArraySum();
+                argOIs = new ObjectInspector[]{column.oi};
+                break;
+            case "array_sum_compensated":
+                function = new ArraySum();
+                argOIs = new ObjectInspector[]{column.oi, COMPENSATED};
+                break;
+            case "array_avg":
+                function = new ArrayAvg();
+                argOIs = new ObjectInspector[]{column.oi};
+                break;
+            case "array_avg_compensated":
+                function = new ArrayAvg();
+                argOIs = new ObjectInspector[]{column.oi, COMPENSATED};
+                break;
+            case "array_std":
+                function = new ArrayStd();
+                argOIs = new ObjectInspector[]{column.oi};
+                break;
+            case "array_stats":
+                function = new ArrayStats();
+                argOIs = new ObjectInspector[]{column.oi};
+                break;
+            case "array_median":
+                function = new ArrayMedian();
+                argOIs = new ObjectInspector[]{column.oi};
+                break;
+            case "array_percentile":
+                function = new ArrayPercentile();
+                literal = new DoubleWritable(0.99);
+                argOIs = new ObjectInspector[]{column.oi,
+                        PrimitiveObjectInspectorFactory.getPrimitiveWritableConstantObjectInspector(
+                                TypeInfoFactory.doubleTypeInfo, literal)};
+                break;
+            case "array_percentiles":
+                function = new ArrayPercentile();
+                List<DoubleWritable> percentiles = Arrays.asList(
+                        new DoubleWritable(0.5), new DoubleWritable(0.9), new DoubleWritable(0.99));
+                literal = percentiles;
+                argOIs = new ObjectInspector[]{column.oi, ObjectInspectorFactory.getStandardConstantListObjectInspector(
+                        PrimitiveObjectInspectorFactory.writableDoubleObjectInspector, percentiles)};
+                break;
+            default:
+                function = new ArrayNullOutlier();
+                argOIs = new ObjectInspector[]{column.oi,
+                        PrimitiveObjectInspectorFactory.getPrimitiveWritableConstantObjectInspector(
+                                TypeInfoFactory.longTypeInfo, new LongWritable(100)),
+                        PrimitiveObjectInspectorFactory.getPrimitiveWritableConstantObjectInspector(
+                                TypeInfoFactory.longTypeInfo, new LongWritable(5000000))};
+        }
+        function.initialize(argOIs);
+
+        args = new DeferredObject[BenchInputs.ROWS][];
+        for (int i = 0; i < BenchInputs.ROWS; i++) {
+            args[i] = new DeferredObject[argOIs.length];
+            args[i][0] = column.rows[i];
+            for (int j = 1; j < argOIs.length; j++) {
+                args[i][j] = new GenericUDF.DeferredJavaObject(literal);
+            }
+        }
+    }
+
+    @Benchmark
+    public Object evaluate() throws Exception {
+        row = (row + 1) & (BenchInputs.ROWS - 1);
+        return function.evaluate(args[row]);
+    }
+}
@@ -0,0 +1,97 @@
+package com.hive.udf.bench;
+
+import com.hive.udf.TTest;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDAFEvaluator;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDAFEvaluator.AggregationBuffer;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of t_test per input row (iterate) and per partial (merge).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TTestBenchmark {
+    private static final int N = 1024;
+
+    @Param({"JAVA", "WRITABLE", "LAZY"})
+    public BenchInputs.Kind kind;
+
+    @Param({"bigint", "double"})
+    public String type;
+
+    @Param({"0.0", "0.1"})
+    public double nullRatio;
+
+    private Object[][] rows;
+    private int row;
+
+    private GenericUDAFEvaluator complete;
+    private AggregationBuffer completeAgg;
+
+    private GenericUDAFEvaluator finalEvaluator;
+    private AggregationBuffer finalAgg;
+    private Object[] partials;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchInputs.Column y = BenchInputs.column(kind, type, BenchInputs.primitiveRows(type, N, nullRatio, 1));
+        BenchInputs.Column x = BenchInputs.column(kind, type, BenchInputs.primitiveRows(type, N, nullRatio, 2));
+        ObjectInspector[] inputOIs = new ObjectInspector[]{y.oi, x.oi};
+
+        rows = new Object[N][];
+        for (int i = 0; i < N; i++) {
+            rows[i] = new Object[]{y.rows[i].get(), x.rows[i].get()};
+        }
+
+        complete = new TTest.TTestGenericEvaluator();
+        complete.init(GenericUDAFEvaluator.Mode.COMPLETE, inputOIs);
+        completeAgg = complete.getNewAggregationBuffer();
+
+        GenericUDAFEvaluator partial1 = new TTest.TTestGenericEvaluator();
+        ObjectInspector partialOI = partial1.init(GenericUDAFEvaluator.Mode.PARTIAL1, inputOIs);
+        partials = new Object[N];
+        for (int i = 0; i < N; i++) {
+            AggregationBuffer agg = partial1.getNewAggregationBuffer();
+            partial1.iterate(agg, rows[i]);
+            partial1.iterate(agg, rows[(i + 1) % N]);
+            partials[i] = ObjectInspectorUtils.copyToStandardObject(partial1.terminatePartial(agg), partialOI);
+        }
+
+        finalEvaluator = new TTest.TTestGenericEvaluator();
+        finalEvaluator.init(GenericUDAFEvaluator.Mode.FINAL, new ObjectInspector[]{
+                ObjectInspectorUtils.getStandardObjectInspector(partialOI)});
+        finalAgg = finalEvaluator.getNewAggregationBuffer();
+    }
+
+    @Benchmark
+    public AggregationBuffer iterate() throws Exception {
+        row = (row + 1) & (N - 1);
+        complete.iterate(completeAgg, rows[row]);
+        return completeAgg;
+    }
+
+    @Benchmark
+    public AggregationBuffer merge() throws Exception {
+        row = (row + 1) & (N - 1);
+        finalEvaluator.merge(finalAgg, partials[row]);
+        return finalAgg;
+    }
+}
@@ -0,0 +1,127 @@
+package com.hive.udf.bench;
+
+import com.hive.udf.TTest;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDAFEvaluator;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDAFEvaluator.AggregationBuffer;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils.ObjectInspectorCopyOption;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+import org.apache.hadoop.io.Text;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Partial aggregations of t_test as a reducer sees them: BenchInputs.ROWS partials serialized
+ * with LazyBinarySerDe and merged in FINAL mode. Compares the six-field struct partial with the
+ * 48-byte binary partial of t_test(y, x, 'binary'). The serialized bytes per partial of both
+ * formats are reported as the secondary results structPartialBytes and binaryPartialBytes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TTestPartialBenchmark {
+    // Values per partial, which sets the magnitude of the counts
+    @Param({"10", "100000"})
+    public int groupSize;
+
+    private BenchInputs.Column structPartials;
+    private BenchInputs.Column binaryPartials;
+
+    private GenericUDAFEvaluator structFinal;
+    private AggregationBuffer structFinalAgg;
+    private GenericUDAFEvaluator binaryFinal;
+    private AggregationBuffer binaryFinalAgg;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class PartialSize {
+        public double structPartialBytes;
+        public double binaryPartialBytes;
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchInputs.Column y = BenchInputs.column(BenchInputs.Kind.JAVA, "double",
+                BenchInputs.primitiveRows("double", groupSize, 0.0, 1));
+        BenchInputs.Column x = BenchInputs.column(BenchInputs.Kind.JAVA, "double",
+                BenchInputs.primitiveRows("double", groupSize, 0.0, 2));
+        ObjectInspector[] inputOIs = {y.oi, x.oi};
+        ObjectInspector[] binaryInputOIs = {y.oi, x.oi,
+                PrimitiveObjectInspectorFactory.getPrimitiveWritableConstantObjectInspector(
+                        TypeInfoFactory.stringTypeInfo, new Text("binary"))};
+
+        // one partial per mapper, each over a rotation of the same values
+        GenericUDAFEvaluator struct = new TTest.TTestGenericEvaluator();
+        ObjectInspector structOI = struct.init(GenericUDAFEvaluator.Mode.PARTIAL1, inputOIs);
+        GenericUDAFEvaluator binary = new TTest.TTestGenericEvaluator();
+        ObjectInspector binaryOI = binary.init(GenericUDAFEvaluator.Mode.PARTIAL1, binaryInputOIs);
+        List<Object> structRows = new ArrayList<Object>(BenchInputs.ROWS);
+        List<Object> binaryRows = new ArrayList<Object>(BenchInputs.ROWS);
+        for (int p = 0; p < BenchInputs.ROWS; p++) {
+            AggregationBuffer structAgg = struct.getNewAggregationBuffer();
+            AggregationBuffer binaryAgg = binary.getNewAggregationBuffer();
+            for (int i = 0; i < groupSize; i++) {
+                Object[] row = {y.rows[(i + p) % groupSize].get(), x.rows[(i + p) % groupSize].get()};
+                struct.iterate(structAgg, row);
+                binary.iterate(binaryAgg, row);
+            }
+            structRows.add(ObjectInspectorUtils.copyToStandardObject(
+                    struct.terminatePartial(structAgg), structOI, ObjectInspectorCopyOption.JAVA));
+            binaryRows.add(ObjectInspectorUtils.copyToStandardObject(
+                    binary.terminatePartial(binaryAgg), binaryOI, ObjectInspectorCopyOption.JAVA));
+        }
+        structPartials = BenchInputs.column(BenchInputs.Kind.LAZY, structOI.getTypeName(), structRows);
+        binaryPartials = BenchInputs.column(BenchInputs.Kind.LAZY, binaryOI.getTypeName(), binaryRows);
+
+        structFinal = new TTest.TTestGenericEvaluator();
+        structFinal.init(GenericUDAFEvaluator.Mode.FINAL, new ObjectInspector[]{structPartials.oi});
+        structFinalAgg = structFinal.getNewAggregationBuffer();
+        binaryFinal = new TTest.TTestGenericEvaluator();
+        binaryFinal.init(GenericUDAFEvaluator.Mode.FINAL, new ObjectInspector[]{binaryPartials.oi});
+        binaryFinalAgg = binaryFinal.getNewAggregationBuffer();
+    }
+
+    @Setup(Level.Iteration)
+    public void reportSizes(PartialSize partialSize) {
+        partialSize.structPartialBytes = BenchInputs.serializedSize(structPartials);
+        partialSize.binaryPartialBytes = BenchInputs.serializedSize(binaryPartials);
+    }
+
+    @Benchmark
+    public Object mergeStruct(PartialSize partialSize) throws Exception {
+        structFinal.reset(structFinalAgg);
+        for (int i = 0; i < BenchInputs.ROWS; i++) {
+            structFinal.merge(structFinalAgg, structPartials.rows[i].get());
+        }
+        return structFinal.terminate(structFinalAgg);
+    }
+
+    @Benchmark
+    public Object mergeBinary(PartialSize partialSize) throws Exception {
+        binaryFinal.reset(binaryFinalAgg);
+        for (int i = 0; i < BenchInputs.ROWS; i++) {
+            binaryFinal.merge(binaryFinalAgg, binaryPartials.rows[i].get());
+        }
+        return binaryFinal.terminate(binaryFinalAgg);
+    }
+}
@@ -1,6 +1,7 @@
 package com.hive.udf;
 
 import org.apache.hadoop.hive.ql.exec.Description;
+import org.apache.hadoop.hive.ql.exec.MapredContext;
 import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
 import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
 import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
@@ -12,21 +13,32 @@ import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
 
 @Description(name = "array_avg"
-        , value = "_FUNC_(array) - returns the average of an input array."
-        , extended = "Example:\n > select _FUNC_(array) from src;")
+        , value = "_FUNC_(array [, mode]) - returns the average of an input array."
+        , extended = "mode is 'fast' (default) or 'compensated' for Kahan / Neumaier summation.\n"
+        + "Example:\n > select _FUNC_(array, 'compensated') from src;")
 public class ArrayAvg extends GenericUDF {
     private static final int ARG_COUNT = 1; // Number of arguments to this UDF
     private transient ListObjectInspector arrayOI;
     private transient ObjectInspector arrayElementOI;
+    private transient NumericReader reader;
+    private transient DoubleWritable result;  // reused across rows
+    private transient CompensatedSum compensatedSum;  // null in the fast mode
+    private transient int parallelThreshold;  // hiveudf.array.parallel.threshold, 0 if disabled
+    private transient ParallelReduction parallel;
 
     public ArrayAvg() {
     }
 
+    @Override
+    public void configure(MapredContext context) {
+        parallelThreshold = ParallelReduction.threshold(context);
+    }
+
     @Override
     public ObjectInspector initialize(ObjectInspector[] arguments) throws UDFArgumentException {
-        if (arguments.length != ARG_COUNT) {  // Check if the required number of arguments were passed
+        if (arguments.length != ARG_COUNT && arguments.length != ARG_COUNT + 1) {  // Check if the required number of arguments were passed
             throw new UDFArgumentLengthException(
-                    "The function array_avg(array) takes exactly " + ARG_COUNT + " arguments.");
+                    "The function array_avg(array [, mode]) takes 1 or 2 arguments.");
         }
 
         if ("void".equals(arguments[0].getTypeName())) {  // check if input is null
@@ -44,17 +56,14 @@ public class ArrayAvg extends GenericUDF {
         arrayOI = (ListObjectInspector) arguments[0];
         arrayElementOI = arrayOI.getListElementObjectInspector();
 
-        String elementType = arrayElementOI.getTypeName().toUpperCase();
-        if (elementType.contains("TINYINT") || elementType.contains("SMALLINT") ||
-                elementType.contains("INT") || elementType.contains("BIGINT") ||
-                elementType.contains("FLOAT") || elementType.contains("DOUBLE") ||
-                elementType.contains("DECIMAL")) {
-            return PrimitiveObjectInspectorFactory.writableDoubleObjectInspector;
-        } else {
-            throw new UDFArgumentTypeException(0,
-                    "Only numeric type arguments are accepted but "
-                            + arrayElementOI.getTypeName() + " is passed.");
-        }
+        reader = NumericReader.of(arrayElementOI, 0);
+        result = new DoubleWritable(0);
+        compensatedSum = arguments.length > ARG_COUNT
+                && CompensatedSum.isCompensated(arguments[ARG_COUNT], ARG_COUNT, "array_avg")
+                ? new CompensatedSum() : null;
+        parallel = new ParallelReduction(reader);
+
+        return PrimitiveObjectInspectorFactory.writableDoubleObjectInspector;
     }
 
     @Override
@@ -69,28 +78,40 @@ public class ArrayAvg extends GenericUDF {
             return null;
         }
 
+        if (ParallelReduction.enabled(parallelThreshold, arrayLength)) {
+            ParallelReduction.Moments moments = parallel.moments(arrayOI, array, compensatedSum != null);
+            result.set(moments.sum() / moments.n);
+            return result;
+        }
+
         double sum = 0;
         int n = 0;
-        for (int i = 0; i < arrayLength; i++) {
-            Object v = arrayOI.getListElement(array, i);
-            if (v != null) {
-                n++;
-                try {
-                    sum += Double.parseDouble(v.toString());
-                } catch (NumberFormatException formatExc) {
-                    throw new UDFArgumentTypeException(0,
-                            "Only numeric type arguments are accepted but "
-                                    + arrayElementOI.getTypeName() + " was passed as parameter 1.");
+        if (compensatedSum != null) {
+            compensatedSum.reset();
+            for (int i = 0; i < arrayLength; i++) {
+                Object v = arrayOI.getListElement(array, i);
+                if (v != null) {
+                    n++;
+                    compensatedSum.add(reader.getDouble(v));
+                }
+            }
+            sum = compensatedSum.get();
+        } else {
+            for (int i = 0; i < arrayLength; i++) {
+                Object v = arrayOI.getListElement(array, i);
+                if (v != null) {
+                    n++;
+                    sum += reader.getDouble(v);
                 }
             }
         }
 
-        return new DoubleWritable(sum / n);
+        result.set(sum / n);
+        return result;
     }
 
     @Override
     public String getDisplayString(String[] strings) {
-        assert (strings.length == ARG_COUNT);
-        return "array_avg(" + strings[0] + ")";
+        return "array_avg(" + String.join(", ", strings) + ")";
     }
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.hive.udf;
+
+import org.apache.hadoop.hive.ql.exec.Description;
+
+/**
+ * Return the k smallest elements of an array from the smallest, see ArrayTopK.
+ */
+@Description(name = "array_bottom_k"
+        , value = "_FUNC_(array, k) - returns the k smallest elements of an input array, from the smallest."
+        , extended = "Example:\n > select _FUNC_(array, 10) from src;")
+public class ArrayBottomK extends ArrayTopK {
+    public ArrayBottomK() {
+        super("array_bottom_k", false, false);
+    }
+}
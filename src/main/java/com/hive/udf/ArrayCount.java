@@ -19,6 +19,7 @@ public class ArrayCount extends GenericUDF {
     private static final int ARG_COUNT = 1; // Number of arguments to this UDF
     private transient ListObjectInspector arrayOI;
     private transient ObjectInspector arrayElementOI;
+    private transient IntWritable result;  // reused across rows
 
     public ArrayCount() {
     }
@@ -44,6 +45,7 @@ public class ArrayCount extends GenericUDF {
 
         arrayOI = (ListObjectInspector) arguments[0];
         arrayElementOI = arrayOI.getListElementObjectInspector();
+        result = new IntWritable(0);
 
         return PrimitiveObjectInspectorFactory.writableIntObjectInspector;
     }
@@ -56,12 +58,14 @@ public class ArrayCount extends GenericUDF {
         }
 
         int count = 0;
-        for (int i = 0; i < arrayOI.getListLength(array); i++) {
+        int arrayLength = arrayOI.getListLength(array);
+        for (int i = 0; i < arrayLength; i++) {
             if (arrayOI.getListElement(array, i) != null)
                 count++;
         }
 
-        return new IntWritable(count);
+        result.set(count);
+        return result;
     }
 
     @Override
@@ -12,8 +12,6 @@ import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils;
 import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
 import org.apache.hadoop.io.IntWritable;
 
-import java.util.ArrayList;
-
 //import org.apache.hadoop.hive.serde2.io.;
 
 @Description(name = "array_countd"
@@ -23,6 +21,8 @@ public class ArrayCountDistinct extends GenericUDF {
     private static final int ARG_COUNT = 1; // Number of arguments to this UDF
     private transient ListObjectInspector arrayOI;
     private transient ObjectInspector arrayElementOI;
+    private transient ElementSet seen;  // reused across rows
+    private transient IntWritable result;  // reused across rows
 
     public ArrayCountDistinct() {
     }
@@ -48,6 +48,8 @@ public class ArrayCountDistinct extends GenericUDF {
 
         arrayOI = (ListObjectInspector) arguments[0];
         arrayElementOI = arrayOI.getListElementObjectInspector();
+        seen = ElementSet.create(arrayElementOI);
+        result = new IntWritable(0);
 
         return PrimitiveObjectInspectorFactory.writableIntObjectInspector;
     }
@@ -59,25 +61,17 @@ public class ArrayCountDistinct extends GenericUDF {
             return null;
         }
 
-        ArrayList<Object> uniq = new ArrayList<Object>();
-        for (int i = 0; i < arrayOI.getListLength(array); i++) {
+        seen.clear();
+        int arrayLength = arrayOI.getListLength(array);
+        for (int i = 0; i < arrayLength; i++) {
             Object v = arrayOI.getListElement(array, i);
             if (v != null) {
-                boolean found = false;
-                for (Object e : uniq) {
-                    if (v.equals(e)) {
-                        found = true;
-                        break;
-                    }
-                }
-
-                if (!found) {
-                    uniq.add(v);
-                }
+                seen.add(v);
             }
         }
 
-        return new IntWritable(uniq.size());
+        result.set(seen.size());
+        return result;
     }
 
     @Override
@@ -0,0 +1,218 @@
+package com.hive.udf;
+
+import org.apache.hadoop.hive.ql.exec.Description;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF;
+import org.apache.hadoop.hive.serde2.objectinspector.ConstantObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ListObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils;
+import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorUtils;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.StringObjectInspector;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hive.common.util.Murmur3;
+
+/**
+ * Estimate the number of distinct values of an array with HyperLogLog, in fixed
+ * memory of 2^precision bytes per UDF instance. Elements are hashed from their
+ * primitive value or their UTF-8 bytes without being copied.
+ * See HyperLogLog for the relative error at each precision
+ * (0.81% at the default precision 14).
+ */
+@Description(name = "array_count_distinct_approx"
+        , value = "_FUNC_(array [, precision]) - returns the approximate number of distinct values in an input array."
+        , extended = "precision is a constant within [4, 16] (default 14), the relative error is about 1.04 / sqrt(2^precision).\n"
+        + "Example:\n > select _FUNC_(array, 12) from src;")
+public class ArrayCountDistinctApprox extends GenericUDF {
+    private static final int DEFAULT_PRECISION = 14;
+    private transient ListObjectInspector arrayOI;
+    private transient ObjectInspector arrayElementOI;
+    private transient Hasher hasher;
+    private transient HyperLogLog hll;  // reused across rows
+    private transient LongWritable result;
+
+    public ArrayCountDistinctApprox() {
+    }
+
+    @Override
+    public ObjectInspector initialize(ObjectInspector[] arguments) throws UDFArgumentException {
+        if (arguments.length != 1 && arguments.length != 2) {  // Check if the required arguments were passed
+            throw new UDFArgumentLengthException(
+                    "The function array_count_distinct_approx(array [, precision]) takes 1 or 2 arguments.");
+        }
+
+        if ("void".equals(arguments[0].getTypeName())) {  // check if input is null
+            return PrimitiveObjectInspectorFactory.javaVoidObjectInspector;
+        }
+
+        if (!arguments[0].getCategory().equals(ObjectInspector.Category.LIST)) { // Check if the argument is of category LIST
+            throw new UDFArgumentTypeException(0,
+                    "\"" + org.apache.hadoop.hive.serde.serdeConstants.LIST_TYPE_NAME + "\" "
+                            + "expected by function array_count_distinct_approx, but "
+                            + "\"" + arguments[0].getTypeName() + "\" "
+                            + "is found");
+        }
+
+        int precision = DEFAULT_PRECISION;
+        if (arguments.length == 2) {
+            if (!(arguments[1] instanceof ConstantObjectInspector)
+                    || arguments[1].getCategory() != ObjectInspector.Category.PRIMITIVE) {
+                throw new UDFArgumentTypeException(1,
+                        "A constant integer is expected as precision by function array_count_distinct_approx.");
+            }
+
+            precision = PrimitiveObjectInspectorUtils.getInt(
+                    ((ConstantObjectInspector) arguments[1]).getWritableConstantValue(),
+                    (PrimitiveObjectInspector) arguments[1]);
+            if (precision < HyperLogLog.MIN_PRECISION || precision > HyperLogLog.MAX_PRECISION) {
+                throw new UDFArgumentException("The precision of array_count_distinct_approx must be within ["
+                        + HyperLogLog.MIN_PRECISION + ", " + HyperLogLog.MAX_PRECISION + "], but "
+                        + precision + " is passed.");
+            }
+        }
+
+        arrayOI = (ListObjectInspector) arguments[0];
+        arrayElementOI = arrayOI.getListElementObjectInspector();
+        hasher = Hasher.of(arrayElementOI);
+        hll = new HyperLogLog(precision);
+        result = new LongWritable(0);
+
+        return PrimitiveObjectInspectorFactory.writableLongObjectInspector;
+    }
+
+    @Override
+    public Object evaluate(DeferredObject[] arguments) throws HiveException {
+        Object array = arguments[0].get();
+        if (array == null) {  // Check if array is null
+            return null;
+        }
+
+        hll.clear();
+        int arrayLength = arrayOI.getListLength(array);
+        for (int i = 0; i < arrayLength; i++) {
+            Object v = arrayOI.getListElement(array, i);
+            if (v != null) {
+                hll.add(hasher.hash(v));
+            }
+        }
+
+        result.set(hll.estimate());
+        return result;
+    }
+
+    @Override
+    public String getDisplayString(String[] strings) {
+        return "array_count_distinct_approx(" + String.join(", ", strings) + ")";
+    }
+
+    /**
+     * 64-bit hash of an element, resolved once for the element type.
+     */
+    static abstract class Hasher {
+        abstract long hash(Object o);
+
+        static Hasher of(ObjectInspector oi) throws UDFArgumentTypeException {
+            if (oi.getCategory() == ObjectInspector.Category.PRIMITIVE) {
+                PrimitiveObjectInspector poi = (PrimitiveObjectInspector) oi;
+                switch (poi.getPrimitiveCategory()) {
+                    case BYTE:
+                    case SHORT:
+                    case INT:
+                    case LONG:
+                        return new LongHasher(NumericReader.forComparison(oi, 0));
+                    case FLOAT:
+                    case DOUBLE:
+                        return new DoubleHasher(NumericReader.forComparison(oi, 0));
+                    case STRING:
+                        if (poi.preferWritable()) {
+                            return new TextHasher((StringObjectInspector) oi);
+                        }
+                        return new JavaStringHasher((StringObjectInspector) oi);
+                    default:
+                        break;
+                }
+            }
+            return new ObjectHasher(oi);
+        }
+    }
+
+    static final class LongHasher extends Hasher {
+        private final NumericReader reader;
+
+        LongHasher(NumericReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        long hash(Object o) {
+            return HyperLogLog.fmix64(reader.getLong(o));
+        }
+    }
+
+    static final class DoubleHasher extends Hasher {
+        private final NumericReader reader;
+
+        DoubleHasher(NumericReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        long hash(Object o) {
+            double d = reader.getDouble(o);
+            return HyperLogLog.fmix64(Double.doubleToLongBits(d == 0.0d ? 0.0d : d));
+        }
+    }
+
+    static final class TextHasher extends Hasher {
+        private final StringObjectInspector oi;
+
+        TextHasher(StringObjectInspector oi) {
+            this.oi = oi;
+        }
+
+        @Override
+        long hash(Object o) {
+            Text t = oi.getPrimitiveWritableObject(o);
+            return Murmur3.hash64(t.getBytes(), 0, t.getLength(), Murmur3.DEFAULT_SEED);
+        }
+    }
+
+    static final class JavaStringHasher extends Hasher {
+        private final StringObjectInspector oi;
+
+        JavaStringHasher(StringObjectInspector oi) {
+            this.oi = oi;
+        }
+
+        @Override
+        long hash(Object o) {
+            // FNV-1a over the chars, avoids encoding the string to bytes
+            String s = oi.getPrimitiveJavaObject(o);
+            long h = 0xcbf29ce484222325L;
+            for (int j = 0; j < s.length(); j++) {
+                h ^= s.charAt(j);
+                h *= 0x100000001b3L;
+            }
+            return HyperLogLog.fmix64(h);
+        }
+    }
+
+    static final class ObjectHasher extends Hasher {
+        private final ObjectInspector oi;
+
+        ObjectHasher(ObjectInspector oi) {
+            this.oi = oi;
+        }
+
+        @Override
+        long hash(Object o) {
+            return HyperLogLog.fmix64(ObjectInspectorUtils.hashCode(o, oi));
+        }
+    }
+}
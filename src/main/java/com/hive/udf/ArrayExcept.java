@@ -0,0 +1,17 @@
+package com.hive.udf;
+
+import org.apache.hadoop.hive.ql.exec.Description;
+
+/**
+ * Difference of two arrays, see ArraySetOperation.
+ */
+@Description(name = "array_except"
+        , value = "_FUNC_(array1, array2 [, 'sorted']) - returns the distinct elements of array1 that are not in array2."
+        , extended = "With 'sorted' both arrays must be in ascending order (nulls first, as by sort_array)"
+        + " and are merged linearly, the result is then in ascending order.\n"
+        + "Example:\n > select _FUNC_(array1, array2) from src;")
+public class ArrayExcept extends ArraySetOperation {
+    public ArrayExcept() {
+        super("array_except", true, false, false);
+    }
+}
@@ -6,16 +6,26 @@ import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
 import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
 import org.apache.hadoop.hive.ql.metadata.HiveException;
 import org.apache.hadoop.hive.ql.udf.generic.GenericUDF;
+import org.apache.hadoop.hive.serde2.objectinspector.ConstantObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.ListObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector.Category;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils;
+import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector.PrimitiveCategory;
 import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.StringObjectInspector;
 import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.WritableComparator;
+
+import java.util.Arrays;
 
 @Description(name = "array_index"
-        , value = "_FUNC_(array, val) - returns the index of the input in the array."
-        , extended = "Example:\n > select _FUNC_(array, val) from src;")
+        , value = "_FUNC_(array, val [, 'sorted']) - returns the index of the input in the array."
+        , extended = "With 'sorted' the array must be sorted in ascending order (nulls first, as by sort_array)"
+        + " and the value is found by binary search.\n"
+        + "Example:\n > select _FUNC_(array, val) from src;")
 
 public class ArrayFind extends GenericUDF {
     private static final int ARG_COUNT = 2; // Number of arguments to this UDF
@@ -24,6 +34,22 @@ public class ArrayFind extends GenericUDF {
     private ListObjectInspector arrayOI;
     private ObjectInspector arrayElementOI;
     private IntWritable result;
+    private boolean sorted;  // binary search in an ascending array
+
+    // A literal value is converted once to the element's native type
+    private static final int VALUE_NOT_CONSTANT = 0;
+    private static final int VALUE_LONG = 1;
+    private static final int VALUE_DOUBLE = 2;
+    private static final int VALUE_TEXT = 3;
+    private static final int VALUE_OBJECT = 4;
+
+    private transient int constantMode;
+    private transient Object constantValue;
+    private transient NumericReader reader;
+    private transient long longValue;
+    private transient double doubleValue;
+    private transient byte[] textValue;
+    private transient ElementComparator comparator;  // elements are side 0, the value side 1
 
     public ArrayFind() {
     }
@@ -31,9 +57,9 @@ public class ArrayFind extends GenericUDF {
     @Override
     public ObjectInspector initialize(ObjectInspector[] arguments) throws UDFArgumentException {
         // Check if two arguments were passed
-        if (arguments.length != ARG_COUNT) {
+        if (arguments.length != ARG_COUNT && arguments.length != ARG_COUNT + 1) {
             throw new UDFArgumentException("The function array_index accepts "
-                    + ARG_COUNT + " arguments.");
+                    + ARG_COUNT + " or " + (ARG_COUNT + 1) + " arguments.");
         }
 
         if ("void".equals(arguments[0].getTypeName())) {  // check if input is null
@@ -64,20 +90,144 @@ public class ArrayFind extends GenericUDF {
                     + "\"" + valueOI.getTypeName() + "\"" + " types");
         }
 
+        comparator = ElementComparator.create(arrayElementOI, valueOI);
+        sorted = arguments.length > ARG_COUNT && isSorted(arguments[ARG_COUNT]);
+
+        constantMode = VALUE_NOT_CONSTANT;
+        if (valueOI instanceof ConstantObjectInspector) {
+            constantValue = ((ConstantObjectInspector) valueOI).getWritableConstantValue();
+            if (constantValue != null) {
+                initConstantValue();
+            }
+        }
+
         result = new IntWritable(-1);
 
         return PrimitiveObjectInspectorFactory.writableIntObjectInspector;
     }
 
+    /**
+     * Read the constant order argument: 'sorted' or 'unsorted' (the default).
+     */
+    private static boolean isSorted(ObjectInspector orderOI) throws UDFArgumentException {
+        if (!(orderOI instanceof ConstantObjectInspector) || orderOI.getCategory() != Category.PRIMITIVE) {
+            throw new UDFArgumentTypeException(ARG_COUNT,
+                    "A constant string ('sorted' or 'unsorted') is expected as order by function array_index.");
+        }
+
+        Object order = ((ConstantObjectInspector) orderOI).getWritableConstantValue();
+        String name = order == null ? "unsorted" : order.toString().trim().toLowerCase();
+        if (!"sorted".equals(name) && !"unsorted".equals(name)) {
+            throw new UDFArgumentException("The order of array_index must be 'sorted' or 'unsorted' but '"
+                    + order + "' is passed.");
+        }
+        return "sorted".equals(name);
+    }
+
+    private void initConstantValue() throws UDFArgumentException {
+        constantMode = VALUE_OBJECT;
+        if (NumericReader.isNumeric(arrayElementOI)) {
+            reader = NumericReader.forComparison(arrayElementOI, 0);
+            NumericReader valueReader = NumericReader.forComparison(valueOI, 1);
+            if (reader.isIntegral() && valueReader.isIntegral()) {
+                constantMode = VALUE_LONG;
+                longValue = valueReader.getLong(constantValue);
+            } else if (!reader.isIntegral() && !valueReader.isIntegral()
+                    && ((PrimitiveObjectInspector) arrayElementOI).getPrimitiveCategory() != PrimitiveCategory.DECIMAL) {
+                constantMode = VALUE_DOUBLE;
+                doubleValue = valueReader.getDouble(constantValue);
+            }
+        } else if (arrayElementOI instanceof StringObjectInspector
+                && ((StringObjectInspector) arrayElementOI).preferWritable()) {
+            constantMode = VALUE_TEXT;
+            Text t = ((StringObjectInspector) valueOI).getPrimitiveWritableObject(constantValue);
+            textValue = Arrays.copyOf(t.getBytes(), t.getLength());
+        }
+    }
+
+    /**
+     * Index of the first element equal to the literal value, -1 if not found.
+     */
+    private int findConstant(Object array, int arrayLength) {
+        for (int i = 0; i < arrayLength; i++) {
+            Object v = arrayOI.getListElement(array, i);
+            if (v == null) {
+                continue;
+            }
+
+            boolean match;
+            switch (constantMode) {
+                case VALUE_LONG:
+                    match = reader.getLong(v) == longValue;
+                    break;
+                case VALUE_DOUBLE:
+                    match = Double.compare(reader.getDouble(v), doubleValue) == 0;
+                    break;
+                case VALUE_TEXT:
+                    Text t = ((StringObjectInspector) arrayElementOI).getPrimitiveWritableObject(v);
+                    match = WritableComparator.compareBytes(t.getBytes(), 0, t.getLength(),
+                            textValue, 0, textValue.length) == 0;
+                    break;
+                default:
+                    match = comparator.compare(v, 0, constantValue, 1) == 0;
+            }
+
+            if (match) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Index of the first element equal to value in an ascending array (nulls first), -1 if not found.
+     */
+    private int binarySearch(Object array, int arrayLength, Object value) {
+        int lo = 0;
+        int hi = arrayLength;  // the first match is within [lo, hi)
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            Object v = arrayOI.getListElement(array, mid);
+            if (v == null || comparator.compare(v, 0, value, 1) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+
+        if (lo < arrayLength) {
+            Object v = arrayOI.getListElement(array, lo);
+            if (v != null && comparator.compare(v, 0, value, 1) == 0) {
+                return lo;
+            }
+        }
+        return -1;
+    }
+
     @Override
     public Object evaluate(DeferredObject[] arguments) throws HiveException {
         result.set(-1);
 
         Object array = arguments[0].get();
-        Object value = arguments[1].get();
-
         int arrayLength = arrayOI.getListLength(array);
 
+        if (sorted) {
+            Object value = constantMode != VALUE_NOT_CONSTANT ? constantValue : arguments[1].get();
+            if (value != null && arrayLength > 0) {
+                result.set(binarySearch(array, arrayLength, value));
+            }
+            return result;
+        }
+
+        if (constantMode != VALUE_NOT_CONSTANT) {
+            if (arrayLength > 0) {
+                result.set(findConstant(array, arrayLength));
+            }
+            return result;
+        }
+
+        Object value = arguments[1].get();
+
         // Check if array is null or empty or value is null
         if (value == null || arrayLength <= 0) {
             return result;
@@ -87,7 +237,7 @@ public class ArrayFind extends GenericUDF {
         for (int i = 0; i < arrayLength; i++) {
             Object v = arrayOI.getListElement(array, i);
             if (v != null) {
-                if (ObjectInspectorUtils.compare(value, valueOI, v, arrayElementOI) == 0) {
+                if (comparator.compare(v, 0, value, 1) == 0) {
                     result.set(i);
                     break;
                 }
@@ -99,7 +249,6 @@ public class ArrayFind extends GenericUDF {
 
     @Override
     public String getDisplayString(String[] strings) {
-        assert (strings.length == ARG_COUNT);
-        return "array_index_of(" + strings[0] + ", " + strings[1] + ")";
+        return "array_index_of(" + String.join(", ", strings) + ")";
     }
 }
\ No newline at end of file
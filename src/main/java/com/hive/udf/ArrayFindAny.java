@@ -0,0 +1,163 @@
+package com.hive.udf;
+
+import org.apache.hadoop.hive.ql.exec.Description;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF;
+import org.apache.hadoop.hive.serde2.objectinspector.ConstantObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ListObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.io.IntWritable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Find any of a constant list of values ("needles") in an array. The needles are put in an
+ * ElementSet once in initialize(), so each element is probed once, instead of calling
+ * array_find for every needle.
+ */
+@Description(name = "array_find_any"
+        , value = "_FUNC_(array, needles [, 'first' | 'all']) - returns the index of the first element found in the"
+        + " constant array needles (-1 if none), or with 'all' the indices of all of them."
+        , extended = "Example:\n > select _FUNC_(flags, array('beta', 'canary')) from src;")
+public class ArrayFindAny extends GenericUDF {
+    private static final int ARG_COUNT = 2; // Number of arguments to this UDF
+    private transient ListObjectInspector arrayOI;
+    private transient ElementSet needles;  // elements are side 0, the needles side 1
+    private transient boolean all;  // return all the matching indices
+    private transient IntWritable result;
+    private transient ArrayList<IntWritable> res;  // reused across rows
+    private transient ArrayList<IntWritable> positions;  // reused writables of res
+
+    public ArrayFindAny() {
+    }
+
+    @Override
+    public ObjectInspector initialize(ObjectInspector[] arguments) throws UDFArgumentException {
+        if (arguments.length != ARG_COUNT && arguments.length != ARG_COUNT + 1) {  // Check if the required arguments were passed
+            throw new UDFArgumentLengthException(
+                    "The function array_find_any(array, needles [, mode]) takes 2 or 3 arguments.");
+        }
+
+        for (int i = 0; i < ARG_COUNT; i++) {
+            if (!arguments[i].getCategory().equals(ObjectInspector.Category.LIST)) { // Check if the argument is of category LIST
+                throw new UDFArgumentTypeException(i,
+                        "\"" + org.apache.hadoop.hive.serde.serdeConstants.LIST_TYPE_NAME + "\" "
+                                + "expected by function array_find_any as parameter " + (i + 1) + ", but "
+                                + "\"" + arguments[i].getTypeName() + "\" "
+                                + "is found");
+            }
+        }
+
+        if (!(arguments[1] instanceof ConstantObjectInspector)) {
+            throw new UDFArgumentTypeException(1,
+                    "A constant array is expected as needles by function array_find_any.");
+        }
+
+        arrayOI = (ListObjectInspector) arguments[0];
+        ListObjectInspector needlesOI = (ListObjectInspector) arguments[1];
+        ObjectInspector arrayElementOI = arrayOI.getListElementObjectInspector();
+        ObjectInspector needleOI = needlesOI.getListElementObjectInspector();
+
+        // Check if list elements and needles are of same type, any integral types can be matched
+        if (!ObjectInspectorUtils.compareTypes(arrayElementOI, needleOI)
+                && !(isIntegral(arrayElementOI) && isIntegral(needleOI))) {
+            throw new UDFArgumentTypeException(1, "\"array<" + arrayElementOI.getTypeName() + ">\""
+                    + " expected at function array_find_any, but " + "\""
+                    + needlesOI.getTypeName() + "\"" + " is found");
+        }
+
+        all = arguments.length > ARG_COUNT && isAll(arguments[ARG_COUNT]);
+
+        needles = ElementSet.create(arrayElementOI, needleOI);
+        List<?> values = (List<?>) ((ConstantObjectInspector) needlesOI).getWritableConstantValue();
+        if (values != null) {
+            for (Object v : values) {
+                if (v != null) {
+                    needles.add(v, 1);
+                }
+            }
+        }
+
+        result = new IntWritable(-1);
+        res = new ArrayList<IntWritable>();
+        positions = new ArrayList<IntWritable>();
+
+        return all ? ObjectInspectorFactory.getStandardListObjectInspector(
+                PrimitiveObjectInspectorFactory.writableIntObjectInspector)
+                : PrimitiveObjectInspectorFactory.writableIntObjectInspector;
+    }
+
+    private static boolean isIntegral(ObjectInspector oi) throws UDFArgumentTypeException {
+        return NumericReader.isNumeric(oi) && NumericReader.of(oi, 1).isIntegral();
+    }
+
+    /**
+     * Read the constant mode argument: 'first' (the default) or 'all'.
+     */
+    private static boolean isAll(ObjectInspector modeOI) throws UDFArgumentException {
+        if (!(modeOI instanceof ConstantObjectInspector)
+                || modeOI.getCategory() != ObjectInspector.Category.PRIMITIVE) {
+            throw new UDFArgumentTypeException(ARG_COUNT,
+                    "A constant string ('first' or 'all') is expected as mode by function array_find_any.");
+        }
+
+        Object mode = ((ConstantObjectInspector) modeOI).getWritableConstantValue();
+        String name = mode == null ? "first" : mode.toString().trim().toLowerCase();
+        if (!"first".equals(name) && !"all".equals(name)) {
+            throw new UDFArgumentException("The mode of array_find_any must be 'first' or 'all' but '"
+                    + mode + "' is passed.");
+        }
+        return "all".equals(name);
+    }
+
+    @Override
+    public Object evaluate(DeferredObject[] arguments) throws HiveException {
+        Object array = arguments[0].get();
+        if (array == null) {  // Check if array is null
+            if (all) {
+                return null;
+            }
+            result.set(-1);
+            return result;
+        }
+
+        int arrayLength = arrayOI.getListLength(array);
+        if (!all) {
+            result.set(-1);
+            for (int i = 0; i < arrayLength; i++) {
+                Object v = arrayOI.getListElement(array, i);
+                if (v != null && needles.contains(v, 0)) {
+                    result.set(i);
+                    break;
+                }
+            }
+            return result;
+        }
+
+        res.clear();
+        for (int i = 0; i < arrayLength; i++) {
+            Object v = arrayOI.getListElement(array, i);
+            if (v != null && needles.contains(v, 0)) {
+                if (positions.size() <= res.size()) {
+                    positions.add(new IntWritable());
+                }
+                IntWritable position = positions.get(res.size());
+                position.set(i);
+                res.add(position);
+            }
+        }
+        return res;
+    }
+
+    @Override
+    public String getDisplayString(String[] strings) {
+        return "array_find_any(" + String.join(", ", strings) + ")";
+    }
+}
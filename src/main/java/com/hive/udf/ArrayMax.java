@@ -1,6 +1,7 @@
 package com.hive.udf;
 
 import org.apache.hadoop.hive.ql.exec.Description;
+import org.apache.hadoop.hive.ql.exec.MapredContext;
 import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
 import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
 import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
@@ -18,10 +19,18 @@ public class ArrayMax extends GenericUDF {
     private static final int ARG_COUNT = 1; // Number of arguments to this UDF
     private transient ListObjectInspector arrayOI;
     private transient ObjectInspector arrayElementOI;
+    private transient ElementComparator comparator;
+    private transient int parallelThreshold;  // hiveudf.array.parallel.threshold, 0 if disabled
+    private transient ParallelReduction parallel;
 
     public ArrayMax() {
     }
 
+    @Override
+    public void configure(MapredContext context) {
+        parallelThreshold = ParallelReduction.threshold(context);
+    }
+
     @Override
     public ObjectInspector initialize(ObjectInspector[] arguments) throws UDFArgumentException {
         if (arguments.length != ARG_COUNT) {  // Check if only one argument was passed
@@ -52,6 +61,12 @@ public class ArrayMax extends GenericUDF {
                     + " types");
         }
 
+        comparator = ElementComparator.create(arrayElementOI);
+
+        // Only arrays of types that compare exactly as doubles are reduced in parallel
+        parallel = ParallelReduction.isExactDouble(arrayElementOI)
+                ? new ParallelReduction(NumericReader.forComparison(arrayElementOI, 0)) : null;
+
         return arrayElementOI;
     }
 
@@ -67,12 +82,18 @@ public class ArrayMax extends GenericUDF {
             return null;
         }
 
-        Object max = arrayOI.getListElement(array, 0);
+        if (parallel != null && ParallelReduction.enabled(parallelThreshold, arrayLength)) {
+            int i = parallel.extreme(arrayOI, array, true);
+            return i < 0 ? null : arrayOI.getListElement(array, i);
+        }
+
+        // The largest non-null element, null if all elements are null
+        Object max = null;
         for (int i = 0; i < arrayLength; i++) {
             Object v = arrayOI.getListElement(array, i);
-            if (ObjectInspectorUtils.compare(max, this.arrayElementOI,
-                    v, this.arrayElementOI) < 0 && v != null)
+            if (v != null && (max == null || comparator.compare(v, max) > 0)) {
                 max = v;
+            }
         }
 
         return max;
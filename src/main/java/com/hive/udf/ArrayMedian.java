@@ -0,0 +1,15 @@
+package com.hive.udf;
+
+import org.apache.hadoop.hive.ql.exec.Description;
+
+/**
+ * Exact median of a numeric array, array_percentile(array, 0.5) with quickselect.
+ */
+@Description(name = "array_median"
+        , value = "_FUNC_(array) - returns the exact median of an input array."
+        , extended = "Example:\n > select _FUNC_(latencies) from src;")
+public class ArrayMedian extends ArrayPercentile {
+    public ArrayMedian() {
+        super("array_median", 1);
+    }
+}
@@ -6,11 +6,14 @@ import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
 import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
 import org.apache.hadoop.hive.ql.metadata.HiveException;
 import org.apache.hadoop.hive.ql.udf.generic.GenericUDF;
+import org.apache.hadoop.hive.serde2.objectinspector.ConstantObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.ListObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils;
+import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorUtils;
 
 import java.util.ArrayList;
 
@@ -21,6 +24,17 @@ public class ArrayNullOutlier extends GenericUDF {
     private static final int ARG_COUNT = 3; // Number of arguments to this UDF
     private transient ListObjectInspector arrayOI;
     private transient ObjectInspector arrayElementOI;
+    private transient ArrayList<Object> res;  // reused across rows
+    private transient ElementComparator comparator;  // sides: elements, lower, upper
+
+    // Literal numeric bounds converted once to the element's native type
+    private transient NumericReader reader;
+    private transient boolean constantBounds;
+    private transient boolean integralBounds;
+    private transient long lowerLong;
+    private transient long upperLong;
+    private transient double lowerDouble;
+    private transient double upperDouble;
 
     public ArrayNullOutlier() {
     }
@@ -67,9 +81,48 @@ public class ArrayNullOutlier extends GenericUDF {
                     + " types");
         }
 
+        comparator = ElementComparator.create(arrayElementOI, arguments[1], arguments[2]);
+
+        constantBounds = false;
+        if (NumericReader.isNumeric(arrayElementOI)
+                && isNumericConstant(arguments[1]) && isNumericConstant(arguments[2])) {
+            PrimitiveObjectInspector lowerOI = (PrimitiveObjectInspector) arguments[1];
+            PrimitiveObjectInspector upperOI = (PrimitiveObjectInspector) arguments[2];
+            Object lower = ((ConstantObjectInspector) lowerOI).getWritableConstantValue();
+            Object upper = ((ConstantObjectInspector) upperOI).getWritableConstantValue();
+            if (lower != null && upper != null) {
+                constantBounds = true;
+                reader = NumericReader.forComparison(arrayElementOI, 0);
+                integralBounds = reader.isIntegral()
+                        && NumericReader.of(lowerOI, 1).isIntegral() && NumericReader.of(upperOI, 2).isIntegral();
+                lowerLong = PrimitiveObjectInspectorUtils.getLong(lower, lowerOI);
+                upperLong = PrimitiveObjectInspectorUtils.getLong(upper, upperOI);
+                lowerDouble = PrimitiveObjectInspectorUtils.getDouble(lower, lowerOI);
+                upperDouble = PrimitiveObjectInspectorUtils.getDouble(upper, upperOI);
+            }
+        }
+
+        res = new ArrayList<Object>();
+
         return ObjectInspectorFactory.getStandardListObjectInspector(arrayElementOI);
     }
 
+    private static boolean isNumericConstant(ObjectInspector oi) {
+        return oi instanceof ConstantObjectInspector && NumericReader.isNumeric(oi);
+    }
+
+    /**
+     * Check lower &lt; v &lt; upper for the literal bounds.
+     */
+    private boolean withinConstantBounds(Object v) {
+        if (integralBounds) {
+            long t = reader.getLong(v);
+            return t > lowerLong && t < upperLong;
+        }
+        double t = reader.getDouble(v);
+        return t > lowerDouble && t < upperDouble;
+    }
+
     @Override
     public Object evaluate(DeferredObject[] arguments) throws HiveException {
         Object array = arguments[0].get();
@@ -82,14 +135,24 @@ public class ArrayNullOutlier extends GenericUDF {
             return null;
         }
 
+        res.clear();
+        if (constantBounds) {
+            for (int i = 0; i < arrayLength; i++) {
+                Object v = arrayOI.getListElement(array, i);
+                res.add(v != null && withinConstantBounds(v) ? v : null);
+            }
+            return res;
+        }
+
         Object lower = arguments[1].get();
         Object upper = arguments[2].get();
 
-        ArrayList<Object> res = new ArrayList<Object>();
+        // A null bound compares below every element: a null lower bound keeps every element
+        // below upper, a null upper bound keeps none
         for (int i = 0; i < arrayLength; i++) {
             Object v = arrayOI.getListElement(array, i);
-            if (ObjectInspectorUtils.compare(upper, this.arrayElementOI, v, this.arrayElementOI) > 0 &&
-                    ObjectInspectorUtils.compare(lower, this.arrayElementOI, v, this.arrayElementOI) < 0) {
+            if (v != null && upper != null && comparator.compare(v, 0, upper, 2) < 0
+                    && (lower == null || comparator.compare(v, 0, lower, 1) > 0)) {
                 res.add(v);
             } else {
                 res.add(null);
@@ -0,0 +1,259 @@
+package com.hive.udf;
+
+import org.apache.hadoop.hive.ql.exec.Description;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF;
+import org.apache.hadoop.hive.serde2.io.DoubleWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.ListObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Exact percentiles of the non-null values of a numeric array, interpolated linearly between
+ * the closest ranks like the percentile aggregate. Values are copied into a reused double[],
+ * a single percentile is answered with quickselect in O(n), several ones with a single sort.
+ * NaNs are ordered after every other value, as by Arrays.sort.
+ */
+@Description(name = "array_percentile"
+        , value = "_FUNC_(array, p) - returns the exact p-th percentile (or an array of percentiles if p is an array)"
+        + " of an input array, p must be within [0, 1]."
+        , extended = "Example:\n > select _FUNC_(latencies, array(0.5, 0.9, 0.99)) from src;")
+public class ArrayPercentile extends GenericUDF {
+    private final String name;
+    private final int argCount;  // Number of arguments to this UDF
+
+    private transient ListObjectInspector arrayOI;
+    private transient NumericReader reader;
+    private transient ListObjectInspector percentilesOI;  // null if p is a single number
+    private transient NumericReader percentileReader;
+    private transient double[] values;  // reused across rows
+    private transient DoubleWritable result;
+    private transient ArrayList<DoubleWritable> res;  // reused across rows
+    private transient ArrayList<DoubleWritable> results;  // reused writables of res
+
+    public ArrayPercentile() {
+        this("array_percentile", 2);
+    }
+
+    protected ArrayPercentile(String name, int argCount) {
+        this.name = name;
+        this.argCount = argCount;
+    }
+
+    @Override
+    public ObjectInspector initialize(ObjectInspector[] arguments) throws UDFArgumentException {
+        if (arguments.length != argCount) {  // Check if the required arguments were passed
+            throw new UDFArgumentLengthException("The function " + name
+                    + (argCount == 1 ? "(array)" : "(array, p)") + " takes exactly " + argCount + " arguments.");
+        }
+
+        if ("void".equals(arguments[0].getTypeName())) {  // check if input is null
+            return PrimitiveObjectInspectorFactory.javaVoidObjectInspector;
+        }
+
+        if (!arguments[0].getCategory().equals(ObjectInspector.Category.LIST)) { // Check if the argument is of category LIST
+            throw new UDFArgumentTypeException(0,
+                    "\"" + org.apache.hadoop.hive.serde.serdeConstants.LIST_TYPE_NAME + "\" "
+                            + "expected by function " + name + ", but "
+                            + "\"" + arguments[0].getTypeName() + "\" "
+                            + "is found");
+        }
+
+        arrayOI = (ListObjectInspector) arguments[0];
+        reader = NumericReader.of(arrayOI.getListElementObjectInspector(), 0);
+        values = new double[0];
+        result = new DoubleWritable(0);
+
+        percentilesOI = null;
+        percentileReader = null;
+        if (argCount > 1) {
+            if (arguments[1].getCategory() == ObjectInspector.Category.LIST) {
+                percentilesOI = (ListObjectInspector) arguments[1];
+                percentileReader = NumericReader.of(percentilesOI.getListElementObjectInspector(), 1);
+                res = new ArrayList<DoubleWritable>();
+                results = new ArrayList<DoubleWritable>();
+                return ObjectInspectorFactory.getStandardListObjectInspector(
+                        PrimitiveObjectInspectorFactory.writableDoubleObjectInspector);
+            }
+            percentileReader = NumericReader.of(arguments[1], 1);
+        }
+
+        return PrimitiveObjectInspectorFactory.writableDoubleObjectInspector;
+    }
+
+    @Override
+    public Object evaluate(DeferredObject[] arguments) throws HiveException {
+        Object array = arguments[0].get();
+        Object p = argCount > 1 ? arguments[1].get() : null;
+        if (array == null || (argCount > 1 && p == null)) {  // Check if array or p is null
+            return null;
+        }
+
+        // Copy the non-null values, NaNs are only counted
+        int arrayLength = arrayOI.getListLength(array);
+        if (values.length < arrayLength) {
+            values = new double[Math.max(arrayLength, 2 * values.length)];
+        }
+        int n = 0;
+        int nans = 0;
+        for (int i = 0; i < arrayLength; i++) {
+            Object v = arrayOI.getListElement(array, i);
+            if (v != null) {
+                double d = reader.getDouble(v);
+                if (Double.isNaN(d)) {
+                    nans++;
+                } else {
+                    values[n++] = d;
+                }
+            }
+        }
+        if (n + nans == 0) {
+            return null;
+        }
+
+        if (percentilesOI == null) {
+            double percentile = argCount > 1 ? percentileReader.getDouble(p) : 0.5d;
+            result.set(select(n, nans, percentile));
+            return result;
+        }
+
+        Arrays.sort(values, 0, n);
+        res.clear();
+        int percentilesLength = percentilesOI.getListLength(p);
+        for (int i = 0; i < percentilesLength; i++) {
+            Object percentile = percentilesOI.getListElement(p, i);
+            if (percentile == null) {
+                res.add(null);
+                continue;
+            }
+            if (results.size() <= i) {
+                results.add(new DoubleWritable());
+            }
+            DoubleWritable r = results.get(i);
+            r.set(sorted(n, nans, percentileReader.getDouble(percentile)));
+            res.add(r);
+        }
+        return res;
+    }
+
+    /**
+     * Percentile of values[0, n) followed by nans NaNs, values are partially reordered.
+     */
+    private double select(int n, int nans, double percentile) throws HiveException {
+        double rank = rank(n + nans, percentile);
+        int lower = (int) rank;
+        if (lower >= n) {
+            return Double.NaN;
+        }
+
+        quickselect(values, 0, n - 1, lower);
+        double lowerValue = values[lower];
+        if (rank == lower) {
+            return lowerValue;
+        }
+        if (lower + 1 >= n) {
+            return Double.NaN;
+        }
+
+        // values[lower + 1, n) are not smaller, the next rank is their minimum
+        double upperValue = values[lower + 1];
+        for (int i = lower + 2; i < n; i++) {
+            upperValue = Math.min(upperValue, values[i]);
+        }
+        return lowerValue + (rank - lower) * (upperValue - lowerValue);
+    }
+
+    /**
+     * Percentile of the sorted values[0, n) followed by nans NaNs.
+     */
+    private double sorted(int n, int nans, double percentile) throws HiveException {
+        double rank = rank(n + nans, percentile);
+        int lower = (int) rank;
+        if (lower >= n) {
+            return Double.NaN;
+        }
+        if (rank == lower) {
+            return values[lower];
+        }
+        if (lower + 1 >= n) {
+            return Double.NaN;
+        }
+        return values[lower] + (rank - lower) * (values[lower + 1] - values[lower]);
+    }
+
+    private double rank(int count, double percentile) throws HiveException {
+        if (!(percentile >= 0 && percentile <= 1)) {
+            throw new HiveException("The percentile of " + name + " must be within [0, 1] but "
+                    + percentile + " is passed.");
+        }
+        return percentile * (count - 1);
+    }
+
+    /**
+     * Reorder a[lo, hi] so that a[k] is the value of rank k, smaller values before and larger
+     * ones after it (Hoare's selection with a median of three pivot). Falls back to a sort when
+     * the partitions shrink too slowly, so the worst case stays O(n log n).
+     */
+    static void quickselect(double[] a, int lo, int hi, int k) {
+        int budget = 2 * (32 - Integer.numberOfLeadingZeros(hi - lo + 1));
+        while (hi > lo) {
+            if (budget-- == 0) {
+                Arrays.sort(a, lo, hi + 1);
+                return;
+            }
+
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] < a[lo]) {
+                swap(a, mid, lo);
+            }
+            if (a[hi] < a[lo]) {
+                swap(a, hi, lo);
+            }
+            if (a[hi] < a[mid]) {
+                swap(a, hi, mid);
+            }
+            double pivot = a[mid];
+
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (a[i] < pivot) {
+                    i++;
+                }
+                while (a[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(a, i++, j--);
+                }
+            }
+
+            // a[lo, j] <= pivot <= a[i, hi], and a(j, i) == pivot
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static void swap(double[] a, int i, int j) {
+        double t = a[i];
+        a[i] = a[j];
+        a[j] = t;
+    }
+
+    @Override
+    public String getDisplayString(String[] strings) {
+        return name + "(" + String.join(", ", strings) + ")";
+    }
+}
@@ -0,0 +1,228 @@
+package com.hive.udf;
+
+import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF;
+import org.apache.hadoop.hive.serde2.objectinspector.ConstantObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ListObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils.ObjectInspectorCopyOption;
+
+import java.util.ArrayList;
+
+/**
+ * Set operation between two arrays, shared by array_intersect, array_union and array_except.
+ * The result holds distinct non-null elements: those of the first array that are kept, in the
+ * order of their first occurrence, then for a union the new elements of the second array.
+ * <p>
+ * Elements are hashed with ElementSets reused across rows. With the constant 'sorted' argument
+ * both arrays must be in ascending order (nulls first, as by sort_array): they are merged
+ * linearly with an ElementComparator and the result is in ascending order too.
+ */
+abstract class ArraySetOperation extends GenericUDF {
+    private static final int ARG_COUNT = 2; // Number of arguments to this UDF
+    private final String name;
+    // Which elements are kept: only in the first array, in both, only in the second one
+    private final boolean keepFirst;
+    private final boolean keepBoth;
+    private final boolean keepSecond;
+
+    private transient ListObjectInspector[] arrayOIs;
+    private transient ObjectInspector[] elementOIs;
+    private transient boolean copy;  // elements of the union have different inspectors, copy them
+    private transient boolean sorted;
+    private transient ElementSet seen;  // reused across rows
+    private transient ElementSet second;  // elements of the second array, reused across rows
+    private transient ElementComparator comparator;
+    private transient ArrayList<Object> res;  // reused across rows
+
+    ArraySetOperation(String name, boolean keepFirst, boolean keepBoth, boolean keepSecond) {
+        this.name = name;
+        this.keepFirst = keepFirst;
+        this.keepBoth = keepBoth;
+        this.keepSecond = keepSecond;
+    }
+
+    @Override
+    public ObjectInspector initialize(ObjectInspector[] arguments) throws UDFArgumentException {
+        if (arguments.length != ARG_COUNT && arguments.length != ARG_COUNT + 1) {  // Check if the required arguments were passed
+            throw new UDFArgumentLengthException(
+                    "The function " + name + "(array1, array2 [, 'sorted']) takes 2 or 3 arguments.");
+        }
+
+        arrayOIs = new ListObjectInspector[ARG_COUNT];
+        elementOIs = new ObjectInspector[ARG_COUNT];
+        for (int i = 0; i < ARG_COUNT; i++) {
+            if (!arguments[i].getCategory().equals(ObjectInspector.Category.LIST)) { // Check if the argument is of category LIST
+                throw new UDFArgumentTypeException(i,
+                        "\"" + org.apache.hadoop.hive.serde.serdeConstants.LIST_TYPE_NAME + "\" "
+                                + "expected by function " + name + " as parameter " + (i + 1) + ", but "
+                                + "\"" + arguments[i].getTypeName() + "\" "
+                                + "is found");
+            }
+            arrayOIs[i] = (ListObjectInspector) arguments[i];
+            elementOIs[i] = arrayOIs[i].getListElementObjectInspector();
+        }
+
+        // Check if the elements of both arrays are of same type
+        if (!ObjectInspectorUtils.compareTypes(elementOIs[0], elementOIs[1])) {
+            throw new UDFArgumentTypeException(1, "\"" + arguments[0].getTypeName() + "\""
+                    + " expected at function " + name + ", but " + "\""
+                    + arguments[1].getTypeName() + "\"" + " is found");
+        }
+
+        sorted = arguments.length > ARG_COUNT && isSorted(arguments[ARG_COUNT]);
+        if (sorted) {
+            if (!ObjectInspectorUtils.compareSupported(elementOIs[0])) {
+                throw new UDFArgumentException("The function " + name
+                        + " does not support comparison for "
+                        + "\"" + elementOIs[0].getTypeName() + "\""
+                        + " types");
+            }
+            comparator = ElementComparator.create(elementOIs);
+        } else {
+            seen = ElementSet.create(elementOIs);
+            second = ElementSet.create(elementOIs);
+        }
+
+        res = new ArrayList<Object>();
+
+        copy = keepSecond && elementOIs[0] != elementOIs[1];
+        return ObjectInspectorFactory.getStandardListObjectInspector(copy
+                ? ObjectInspectorUtils.getStandardObjectInspector(elementOIs[0], ObjectInspectorCopyOption.WRITABLE)
+                : elementOIs[0]);
+    }
+
+    /**
+     * Read the constant order argument: 'sorted' or 'unsorted' (the default).
+     */
+    private boolean isSorted(ObjectInspector orderOI) throws UDFArgumentException {
+        if (!(orderOI instanceof ConstantObjectInspector)
+                || orderOI.getCategory() != ObjectInspector.Category.PRIMITIVE) {
+            throw new UDFArgumentTypeException(ARG_COUNT,
+                    "A constant string ('sorted' or 'unsorted') is expected as order by function " + name + ".");
+        }
+
+        Object order = ((ConstantObjectInspector) orderOI).getWritableConstantValue();
+        String mode = order == null ? "unsorted" : order.toString().trim().toLowerCase();
+        if (!"sorted".equals(mode) && !"unsorted".equals(mode)) {
+            throw new UDFArgumentException("The order of " + name + " must be 'sorted' or 'unsorted' but '"
+                    + order + "' is passed.");
+        }
+        return "sorted".equals(mode);
+    }
+
+    @Override
+    public Object evaluate(DeferredObject[] arguments) throws HiveException {
+        Object first = arguments[0].get();
+        Object other = arguments[1].get();
+        if (first == null || other == null) {  // Check if either array is null
+            return null;
+        }
+
+        res.clear();
+        if (sorted) {
+            merge(first, other);
+        } else {
+            hash(first, other);
+        }
+        return res;
+    }
+
+    private void hash(Object first, Object other) {
+        int firstLength = arrayOIs[0].getListLength(first);
+        int otherLength = arrayOIs[1].getListLength(other);
+
+        second.clear();
+        if (keepFirst != keepBoth) {  // only needed to tell the two apart
+            for (int i = 0; i < otherLength; i++) {
+                Object v = arrayOIs[1].getListElement(other, i);
+                if (v != null) {
+                    second.add(v, 1);
+                }
+            }
+        }
+
+        seen.clear();
+        for (int i = 0; i < firstLength; i++) {
+            Object v = arrayOIs[0].getListElement(first, i);
+            if (v != null && seen.add(v, 0)
+                    && (keepFirst == keepBoth || second.contains(v, 0) == keepBoth)) {
+                emit(v, 0);
+            }
+        }
+
+        if (keepSecond) {  // seen holds every element of the first array
+            for (int i = 0; i < otherLength; i++) {
+                Object v = arrayOIs[1].getListElement(other, i);
+                if (v != null && seen.add(v, 1)) {
+                    emit(v, 1);
+                }
+            }
+        }
+    }
+
+    private void merge(Object first, Object other) {
+        int firstLength = arrayOIs[0].getListLength(first);
+        int otherLength = arrayOIs[1].getListLength(other);
+
+        int i = next(first, 0, firstLength, -1);
+        int j = next(other, 1, otherLength, -1);
+        while (i < firstLength && j < otherLength) {
+            Object a = arrayOIs[0].getListElement(first, i);
+            Object b = arrayOIs[1].getListElement(other, j);
+            int c = comparator.compare(a, 0, b, 1);
+            if (c < 0) {
+                if (keepFirst) {
+                    emit(a, 0);
+                }
+                i = next(first, 0, firstLength, i);
+            } else if (c > 0) {
+                if (keepSecond) {
+                    emit(b, 1);
+                }
+                j = next(other, 1, otherLength, j);
+            } else {
+                if (keepBoth) {
+                    emit(a, 0);
+                }
+                i = next(first, 0, firstLength, i);
+                j = next(other, 1, otherLength, j);
+            }
+        }
+
+        for (; keepFirst && i < firstLength; i = next(first, 0, firstLength, i)) {
+            emit(arrayOIs[0].getListElement(first, i), 0);
+        }
+        for (; keepSecond && j < otherLength; j = next(other, 1, otherLength, j)) {
+            emit(arrayOIs[1].getListElement(other, j), 1);
+        }
+    }
+
+    /**
+     * Index of the next distinct non-null element of a sorted array after i (-1 to start).
+     */
+    private int next(Object array, int side, int length, int i) {
+        Object previous = i < 0 ? null : arrayOIs[side].getListElement(array, i);
+        for (i++; i < length; i++) {
+            Object v = arrayOIs[side].getListElement(array, i);
+            if (v != null && (previous == null || comparator.compare(v, side, previous, side) != 0)) {
+                break;
+            }
+        }
+        return i;
+    }
+
+    private void emit(Object v, int side) {
+        res.add(copy ? ObjectInspectorUtils.copyToStandardObject(v, elementOIs[side], ObjectInspectorCopyOption.WRITABLE) : v);
+    }
+
+    @Override
+    public String getDisplayString(String[] strings) {
+        return name + "(" + String.join(", ", strings) + ")";
+    }
+}
@@ -22,6 +22,7 @@ public class ArrayShift extends GenericUDF {
     private transient ListObjectInspector arrayOI;
     private transient ObjectInspector arrayElementOI;
     private transient ObjectInspector valueOI;
+    private transient ArrayList<Object> res;  // reused across rows
 
     public ArrayShift() {
     }
@@ -56,6 +57,8 @@ public class ArrayShift extends GenericUDF {
                     + valueOI.getTypeName() + "\"" + " is found");
         }
 
+        res = new ArrayList<Object>();
+
         return ObjectInspectorFactory.getStandardListObjectInspector(arrayElementOI);
     }
 
@@ -71,7 +74,7 @@ public class ArrayShift extends GenericUDF {
             return null;
         }
 
-        ArrayList<Object> res = new ArrayList<Object>();
+        res.clear();
         res.add(arguments[1].get());
         for (int i = 0; i < arrayLength - 1; i++) { // remove the last one
             res.add(arrayOI.getListElement(array, i));
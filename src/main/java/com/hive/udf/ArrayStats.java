@@ -0,0 +1,159 @@
+package com.hive.udf;
+
+import org.apache.hadoop.hive.ql.exec.Description;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF;
+import org.apache.hadoop.hive.serde2.io.DoubleWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.ListObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.io.IntWritable;
+
+import java.util.ArrayList;
+
+/**
+ * Compute count, sum, mean, std, min and max of an array in a single pass.
+ * Mean and variance are updated incrementally in the same way as TTest:
+ *   mu_n = mu_(n-1) + (x_n - mu_(n-1)) / n
+ *   m2_n = m2_(n-1) + (x_n - mu_(n-1)) * (x_n - mu_n)
+ * and std = sqrt(m2_n / (n - 1)).
+ */
+@Description(name = "array_stats"
+        , value = "_FUNC_(array) - returns struct<count, sum, mean, std, min, max> of an input array."
+        , extended = "Example:\n > select _FUNC_(array).mean from src;")
+public class ArrayStats extends GenericUDF {
+    private static final int ARG_COUNT = 1; // Number of arguments to this UDF
+    private transient ListObjectInspector arrayOI;
+    private transient ObjectInspector arrayElementOI;
+    private transient NumericReader reader;
+
+    // Reused output struct and its fields
+    private transient Object[] result;
+    private transient IntWritable count;
+    private transient DoubleWritable sum;
+    private transient DoubleWritable mean;
+    private transient DoubleWritable std;
+    private transient DoubleWritable min;
+    private transient DoubleWritable max;
+
+    public ArrayStats() {
+    }
+
+    @Override
+    public ObjectInspector initialize(ObjectInspector[] arguments) throws UDFArgumentException {
+        if (arguments.length != ARG_COUNT) {  // Check if the required arguments were passed
+            throw new UDFArgumentLengthException(
+                    "The function array_stats(array) takes exactly " + ARG_COUNT + " arguments.");
+        }
+
+        if ("void".equals(arguments[0].getTypeName())) {  // check if input is null
+            return PrimitiveObjectInspectorFactory.javaVoidObjectInspector;
+        }
+
+        if (!arguments[0].getCategory().equals(ObjectInspector.Category.LIST)) { // Check if the argument is of category LIST
+            throw new UDFArgumentTypeException(0,
+                    "\"" + org.apache.hadoop.hive.serde.serdeConstants.LIST_TYPE_NAME + "\" "
+                            + "expected by function array_stats, but "
+                            + "\"" + arguments[0].getTypeName() + "\" "
+                            + "is found");
+        }
+
+        arrayOI = (ListObjectInspector) arguments[0];
+        arrayElementOI = arrayOI.getListElementObjectInspector();
+        reader = NumericReader.of(arrayElementOI, 0);
+
+        count = new IntWritable(0);
+        sum = new DoubleWritable(0);
+        mean = new DoubleWritable(0);
+        std = new DoubleWritable(0);
+        min = new DoubleWritable(0);
+        max = new DoubleWritable(0);
+        result = new Object[6];
+
+        ArrayList<ObjectInspector> foi = new ArrayList<ObjectInspector>();
+        foi.add(PrimitiveObjectInspectorFactory.writableIntObjectInspector);
+        foi.add(PrimitiveObjectInspectorFactory.writableDoubleObjectInspector);
+        foi.add(PrimitiveObjectInspectorFactory.writableDoubleObjectInspector);
+        foi.add(PrimitiveObjectInspectorFactory.writableDoubleObjectInspector);
+        foi.add(PrimitiveObjectInspectorFactory.writableDoubleObjectInspector);
+        foi.add(PrimitiveObjectInspectorFactory.writableDoubleObjectInspector);
+
+        ArrayList<String> fname = new ArrayList<String>();
+        fname.add("count");
+        fname.add("sum");
+        fname.add("mean");
+        fname.add("std");
+        fname.add("min");
+        fname.add("max");
+
+        return ObjectInspectorFactory.getStandardStructObjectInspector(fname, foi);
+    }
+
+    @Override
+    public Object evaluate(DeferredObject[] arguments) throws HiveException {
+        Object array = arguments[0].get();
+        if (array == null) {  // Check if array is null
+            return null;
+        }
+
+        int arrayLength = arrayOI.getListLength(array);
+
+        long n = 0;
+        double s = 0;
+        double avg = 0;
+        double m2 = 0;
+        double lo = Double.POSITIVE_INFINITY;
+        double hi = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < arrayLength; i++) {
+            Object v = arrayOI.getListElement(array, i);
+            if (v != null) {
+                double t = reader.getDouble(v);
+                n++;
+                s += t;
+                double delta = t - avg;
+                avg += delta / n;
+                m2 += delta * (t - avg);
+                if (t < lo) {
+                    lo = t;
+                }
+                if (t > hi) {
+                    hi = t;
+                }
+            }
+        }
+
+        count.set((int) n);
+        result[0] = count;
+        if (n == 0) {  // Only the count is defined for an empty (or all null) array
+            result[1] = null;
+            result[2] = null;
+            result[3] = null;
+            result[4] = null;
+            result[5] = null;
+            return result;
+        }
+
+        sum.set(s);
+        mean.set(avg);
+        std.set(Math.sqrt(m2 / (n - 1)));
+        min.set(lo);
+        max.set(hi);
+        result[1] = sum;
+        result[2] = mean;
+        result[3] = std;
+        result[4] = min;
+        result[5] = max;
+
+        return result;
+    }
+
+    @Override
+    public String getDisplayString(String[] strings) {
+        assert (strings.length == ARG_COUNT);
+        return "array_stats(" + strings[0] + ")";
+    }
+}
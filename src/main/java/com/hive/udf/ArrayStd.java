@@ -1,6 +1,7 @@
 package com.hive.udf;
 
 import org.apache.hadoop.hive.ql.exec.Description;
+import org.apache.hadoop.hive.ql.exec.MapredContext;
 import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
 import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
 import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
@@ -19,10 +20,20 @@ public class ArrayStd extends GenericUDF {
     private static final int ARG_COUNT = 1; // Number of arguments to this UDF
     private transient ListObjectInspector arrayOI;
     private transient ObjectInspector arrayElementOI;
+    private transient NumericReader reader;
+    private transient DoubleWritable result;  // reused across rows
+    private transient RunningVariance variance;
+    private transient int parallelThreshold;  // hiveudf.array.parallel.threshold, 0 if disabled
+    private transient ParallelReduction parallel;
 
     public ArrayStd() {
     }
 
+    @Override
+    public void configure(MapredContext context) {
+        parallelThreshold = ParallelReduction.threshold(context);
+    }
+
     @Override
     public ObjectInspector initialize(ObjectInspector[] arguments) throws UDFArgumentException {
         if (arguments.length != ARG_COUNT) {  // Check if the required arguments were passed
@@ -45,17 +56,12 @@ public class ArrayStd extends GenericUDF {
         arrayOI = (ListObjectInspector) arguments[0];
         arrayElementOI = arrayOI.getListElementObjectInspector();
 
-        String elementType = arrayElementOI.getTypeName().toUpperCase();
-        if (elementType.contains("TINYINT") || elementType.contains("SMALLINT") ||
-                elementType.contains("INT") || elementType.contains("BIGINT") ||
-                elementType.contains("FLOAT") || elementType.contains("DOUBLE") ||
-                elementType.contains("DECIMAL")) {
-            return PrimitiveObjectInspectorFactory.writableDoubleObjectInspector;
-        } else {
-            throw new UDFArgumentTypeException(0,
-                    "Only numeric type arguments are accepted but "
-                            + arrayElementOI.getTypeName() + " is passed.");
-        }
+        reader = NumericReader.of(arrayElementOI, 0);
+        result = new DoubleWritable(0);
+        variance = new RunningVariance();
+        parallel = new ParallelReduction(reader);
+
+        return PrimitiveObjectInspectorFactory.writableDoubleObjectInspector;
     }
 
     @Override
@@ -70,27 +76,22 @@ public class ArrayStd extends GenericUDF {
             return null;
         }
 
-        double sum = 0;
-        double ssm = 0;
-        double t = 0;
-        int n = 0;
+        if (ParallelReduction.enabled(parallelThreshold, arrayLength)) {
+            ParallelReduction.Moments moments = parallel.moments(arrayOI, array, false);
+            result.set(moments.n == 0 ? Double.NaN : Math.sqrt(moments.m2 / (moments.n - 1)));
+            return result;
+        }
+
+        variance.reset();
         for (int i = 0; i < arrayLength; i++) {
             Object v = arrayOI.getListElement(array, i);
             if (v != null) {
-                n++;
-                try {
-                    t = Double.parseDouble(v.toString());
-                    sum += t;
-                    ssm += t * t;
-                } catch (NumberFormatException formatExc) {
-                    throw new UDFArgumentTypeException(0,
-                            "Only numeric type arguments are accepted but "
-                                    + arrayElementOI.getTypeName() + " was passed as parameter 1.");
-                }
+                variance.add(reader.getDouble(v));
             }
         }
 
-        return new DoubleWritable(Math.sqrt((ssm - sum * sum / n) / (n - 1)));
+        result.set(variance.std());
+        return result;
     }
 
     @Override
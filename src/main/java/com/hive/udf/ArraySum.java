@@ -1,6 +1,7 @@
 package com.hive.udf;
 
 import org.apache.hadoop.hive.ql.exec.Description;
+import org.apache.hadoop.hive.ql.exec.MapredContext;
 import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
 import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
 import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
@@ -13,21 +14,32 @@ import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectIn
 import org.apache.hadoop.hive.serde2.io.DoubleWritable;
 
 @Description(name = "array_sum"
-        , value = "_FUNC_(array) - returns the sum of an input array."
-        , extended = "Example:\n > select _FUNC_(array) from src;")
+        , value = "_FUNC_(array [, mode]) - returns the sum of an input array."
+        , extended = "mode is 'fast' (default) or 'compensated' for Kahan / Neumaier summation.\n"
+        + "Example:\n > select _FUNC_(array, 'compensated') from src;")
 public class ArraySum extends GenericUDF {
     private static final int ARG_COUNT = 1; // Number of arguments to this UDF
     private transient ListObjectInspector arrayOI;
     private transient ObjectInspector arrayElementOI;
+    private transient NumericReader reader;
+    private transient DoubleWritable result;  // reused across rows
+    private transient CompensatedSum compensatedSum;  // null in the fast mode
+    private transient int parallelThreshold;  // hiveudf.array.parallel.threshold, 0 if disabled
+    private transient ParallelReduction parallel;
 
     public ArraySum() {
     }
 
+    @Override
+    public void configure(MapredContext context) {
+        parallelThreshold = ParallelReduction.threshold(context);
+    }
+
     @Override
     public ObjectInspector initialize(ObjectInspector[] arguments) throws UDFArgumentException {
-        if (arguments.length != ARG_COUNT) {  // Check if the required arguments were passed
+        if (arguments.length != ARG_COUNT && arguments.length != ARG_COUNT + 1) {  // Check if the required arguments were passed
             throw new UDFArgumentLengthException(
-                    "The function array_sum(array) takes exactly " + ARG_COUNT + " arguments.");
+                    "The function array_sum(array [, mode]) takes 1 or 2 arguments.");
         }
 
         if ("void".equals(arguments[0].getTypeName())) {  // check if input is null
@@ -45,17 +57,14 @@ public class ArraySum extends GenericUDF {
         arrayOI = (ListObjectInspector) arguments[0];
         arrayElementOI = arrayOI.getListElementObjectInspector();
 
-        String elementType = arrayElementOI.getTypeName().toUpperCase();
-        if (elementType.contains("TINYINT") || elementType.contains("SMALLINT") ||
-                elementType.contains("INT") || elementType.contains("BIGINT") ||
-                elementType.contains("FLOAT") || elementType.contains("DOUBLE") ||
-                elementType.contains("DECIMAL")) {
-            return PrimitiveObjectInspectorFactory.writableDoubleObjectInspector;
-        } else {
-            throw new UDFArgumentTypeException(0,
-                    "Only numeric type arguments are accepted but "
-                            + arrayElementOI.getTypeName() + " is passed.");
-        }
+        reader = NumericReader.of(arrayElementOI, 0);
+        result = new DoubleWritable(0);
+        compensatedSum = arguments.length > ARG_COUNT
+                && CompensatedSum.isCompensated(arguments[ARG_COUNT], ARG_COUNT, "array_sum")
+                ? new CompensatedSum() : null;
+        parallel = new ParallelReduction(reader);
+
+        return PrimitiveObjectInspectorFactory.writableDoubleObjectInspector;
     }
 
     @Override
@@ -70,26 +79,36 @@ public class ArraySum extends GenericUDF {
             return null;
         }
 
+        if (ParallelReduction.enabled(parallelThreshold, arrayLength)) {
+            result.set(parallel.moments(arrayOI, array, compensatedSum != null).sum());
+            return result;
+        }
+
         double sum = 0;
-        for (int i = 0; i < arrayLength; i++) {
-            Object v = arrayOI.getListElement(array, i);
-            if (v != null) {
-                try {
-                    sum += Double.parseDouble(v.toString());
-                } catch (NumberFormatException formatExc) {
-                    throw new UDFArgumentTypeException(0,
-                            "Only numeric type arguments are accepted but "
-                                    + arrayElementOI.getTypeName() + " was passed as parameter 1.");
+        if (compensatedSum != null) {
+            compensatedSum.reset();
+            for (int i = 0; i < arrayLength; i++) {
+                Object v = arrayOI.getListElement(array, i);
+                if (v != null) {
+                    compensatedSum.add(reader.getDouble(v));
+                }
+            }
+            sum = compensatedSum.get();
+        } else {
+            for (int i = 0; i < arrayLength; i++) {
+                Object v = arrayOI.getListElement(array, i);
+                if (v != null) {
+                    sum += reader.getDouble(v);
                 }
             }
         }
 
-        return new DoubleWritable(sum);
+        result.set(sum);
+        return result;
     }
 
     @Override
     public String getDisplayString(String[] strings) {
-        assert (strings.length == ARG_COUNT);
-        return "array_sum(" + strings[0] + ")";
+        return "array_sum(" + String.join(", ", strings) + ")";
     }
 }
\ No newline at end of file
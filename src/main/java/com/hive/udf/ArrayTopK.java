@@ -0,0 +1,140 @@
+package com.hive.udf;
+
+import org.apache.hadoop.hive.ql.exec.Description;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentLengthException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF;
+import org.apache.hadoop.hive.serde2.objectinspector.ListObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.io.IntWritable;
+
+import java.util.ArrayList;
+
+/**
+ * Return the k largest elements of an array from the largest, selected with a bounded heap
+ * in O(n log k) instead of sorting the whole array. Null elements are skipped, equal elements
+ * keep their order in the array. ArrayBottomK, ArrayTopKIndex and ArrayBottomKIndex share
+ * this implementation, the index variants return the (0 based) positions of the elements.
+ */
+@Description(name = "array_top_k"
+        , value = "_FUNC_(array, k) - returns the k largest elements of an input array, from the largest."
+        , extended = "Example:\n > select _FUNC_(array, 10) from src;")
+public class ArrayTopK extends GenericUDF {
+    private static final int ARG_COUNT = 2; // Number of arguments to this UDF
+    private final String name;
+    private final boolean largest;
+    private final boolean indices;
+
+    private transient ListObjectInspector arrayOI;
+    private transient ObjectInspector arrayElementOI;
+    private transient NumericReader kReader;
+    private transient BoundedHeap heap;
+    private transient ArrayList<Object> res;  // reused across rows
+    private transient ArrayList<IntWritable> positions;  // reused writables of the index variants
+
+    public ArrayTopK() {
+        this("array_top_k", true, false);
+    }
+
+    protected ArrayTopK(String name, boolean largest, boolean indices) {
+        this.name = name;
+        this.largest = largest;
+        this.indices = indices;
+    }
+
+    @Override
+    public ObjectInspector initialize(ObjectInspector[] arguments) throws UDFArgumentException {
+        if (arguments.length != ARG_COUNT) {  // Check if the required arguments were passed
+            throw new UDFArgumentLengthException(
+                    "The function " + name + "(array, k) takes exactly " + ARG_COUNT + " arguments.");
+        }
+
+        if ("void".equals(arguments[0].getTypeName())) {  // check if input is null
+            return PrimitiveObjectInspectorFactory.javaVoidObjectInspector;
+        }
+
+        if (!arguments[0].getCategory().equals(ObjectInspector.Category.LIST)) { // Check if the argument is of category LIST
+            throw new UDFArgumentTypeException(0,
+                    "\"" + org.apache.hadoop.hive.serde.serdeConstants.LIST_TYPE_NAME + "\" "
+                            + "expected by function " + name + ", but "
+                            + "\"" + arguments[0].getTypeName() + "\" "
+                            + "is found");
+        }
+
+        kReader = NumericReader.of(arguments[1], 1);
+        if (!kReader.isIntegral()) {
+            throw new UDFArgumentTypeException(1,
+                    "Only integer type arguments are accepted as k but "
+                            + arguments[1].getTypeName() + " is passed.");
+        }
+
+        arrayOI = (ListObjectInspector) arguments[0];
+        arrayElementOI = arrayOI.getListElementObjectInspector();
+
+        // Check if the comparison is supported for this type
+        if (!ObjectInspectorUtils.compareSupported(arrayElementOI)) {
+            throw new UDFArgumentException("The function " + name
+                    + " does not support comparison for "
+                    + "\"" + arrayElementOI.getTypeName() + "\""
+                    + " types");
+        }
+
+        heap = new BoundedHeap(ElementComparator.create(arrayElementOI), largest);
+        res = new ArrayList<Object>();
+        positions = new ArrayList<IntWritable>();
+
+        return ObjectInspectorFactory.getStandardListObjectInspector(indices
+                ? PrimitiveObjectInspectorFactory.writableIntObjectInspector : arrayElementOI);
+    }
+
+    @Override
+    public Object evaluate(DeferredObject[] arguments) throws HiveException {
+        Object array = arguments[0].get();
+        Object kObject = arguments[1].get();
+        if (array == null || kObject == null) {  // Check if array or k is null
+            return null;
+        }
+
+        long k = kReader.getLong(kObject);
+        if (k < 0) {
+            throw new HiveException("k must be non-negative for function " + name + " but " + k + " is passed.");
+        }
+
+        int arrayLength = arrayOI.getListLength(array);
+        heap.reset((int) Math.min(k, arrayLength));
+        for (int i = 0; i < arrayLength; i++) {
+            Object v = arrayOI.getListElement(array, i);
+            if (v != null) {
+                heap.offer(v, i);
+            }
+        }
+        heap.sort();
+
+        res.clear();
+        for (int i = 0; i < heap.size(); i++) {
+            if (indices) {
+                if (positions.size() <= i) {
+                    positions.add(new IntWritable());
+                }
+                IntWritable position = positions.get(i);
+                position.set(heap.index(i));
+                res.add(position);
+            } else {
+                res.add(heap.value(i));
+            }
+        }
+
+        return res;
+    }
+
+    @Override
+    public String getDisplayString(String[] strings) {
+        assert (strings.length == ARG_COUNT);
+        return name + "(" + strings[0] + ", " + strings[1] + ")";
+    }
+}
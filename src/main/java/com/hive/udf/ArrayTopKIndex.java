@@ -0,0 +1,16 @@
+package com.hive.udf;
+
+import org.apache.hadoop.hive.ql.exec.Description;
+
+/**
+ * Return the (0 based) indices of the k largest elements of an array, see ArrayTopK.
+ * Useful to pick the matching elements out of parallel arrays.
+ */
+@Description(name = "array_top_k_index"
+        , value = "_FUNC_(array, k) - returns the indices of the k largest elements of an input array, from the largest."
+        , extended = "Example:\n > select _FUNC_(array, 10) from src;")
+public class ArrayTopKIndex extends ArrayTopK {
+    public ArrayTopKIndex() {
+        super("array_top_k_index", true, true);
+    }
+}
@@ -0,0 +1,17 @@
+package com.hive.udf;
+
+import org.apache.hadoop.hive.ql.exec.Description;
+
+/**
+ * Union of two arrays, see ArraySetOperation.
+ */
+@Description(name = "array_union"
+        , value = "_FUNC_(array1, array2 [, 'sorted']) - returns the distinct elements of array1 and array2."
+        , extended = "With 'sorted' both arrays must be in ascending order (nulls first, as by sort_array)"
+        + " and are merged linearly, the result is then in ascending order.\n"
+        + "Example:\n > select _FUNC_(array1, array2) from src;")
+public class ArrayUnion extends ArraySetOperation {
+    public ArrayUnion() {
+        super("array_union", true, true, true);
+    }
+}
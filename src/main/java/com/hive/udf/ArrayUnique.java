@@ -23,6 +23,8 @@ public class ArrayUnique extends GenericUDF {
     private static final int ARG_COUNT = 1; // Number of arguments to this UDF
     private transient ListObjectInspector arrayOI;
     private transient ObjectInspector arrayElementOI;
+    private transient ElementSet seen;  // reused across rows
+    private transient ArrayList<Object> uniq;  // reused across rows
 
     public ArrayUnique() {
     }
@@ -48,6 +50,8 @@ public class ArrayUnique extends GenericUDF {
 
         arrayOI = (ListObjectInspector) arguments[0];
         arrayElementOI = arrayOI.getListElementObjectInspector();
+        seen = ElementSet.create(arrayElementOI);
+        uniq = new ArrayList<Object>();
 
         return ObjectInspectorFactory.getStandardListObjectInspector(arrayElementOI);
     }
@@ -59,21 +63,13 @@ public class ArrayUnique extends GenericUDF {
             return null;
         }
 
-        ArrayList<Object> uniq = new ArrayList<Object>();
-        for (int i = 0; i < arrayOI.getListLength(array); i++) {
+        seen.clear();
+        uniq.clear();
+        int arrayLength = arrayOI.getListLength(array);
+        for (int i = 0; i < arrayLength; i++) {
             Object v = arrayOI.getListElement(array, i);
-            if (v != null) {
-                boolean found = false;
-                for (Object e : uniq) {
-                    if (v.equals(e)) {
-                        found = true;
-                        break;
-                    }
-                }
-
-                if (!found) {
-                    uniq.add(v);
-                }
+            if (v != null && seen.add(v)) {  // keep the first occurrence
+                uniq.add(v);
             }
         }
         return uniq;
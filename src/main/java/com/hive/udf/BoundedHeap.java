@@ -0,0 +1,121 @@
+package com.hive.udf;
+
+import java.util.Arrays;
+
+/**
+ * Reusable heap of the k best elements of an array and their indices, in O(n log k).
+ * The root is the worst element kept, a new element only enters when it is better.
+ * Among equal elements the one with the smaller index is better, so the selection is stable.
+ */
+final class BoundedHeap {
+    private final ElementComparator comparator;
+    private final boolean largest;  // keep the largest (top k) or the smallest (bottom k)
+    private int k;
+
+    private Object[] values = new Object[0];
+    private int[] indices = new int[0];
+    private int size;
+
+    BoundedHeap(ElementComparator comparator, boolean largest) {
+        this.comparator = comparator;
+        this.largest = largest;
+    }
+
+    /**
+     * Empty the heap and keep at most k elements from now on.
+     */
+    void reset(int k) {
+        this.k = k;
+        if (values.length < k) {
+            int capacity = Math.max(k, 2 * values.length);
+            values = new Object[capacity];
+            indices = new int[capacity];
+        } else {
+            Arrays.fill(values, 0, size, null);
+        }
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Offer a non-null element at the given index of the array.
+     */
+    void offer(Object v, int index) {
+        if (size < k) {
+            values[size] = v;
+            indices[size] = index;
+            siftUp(size++);
+        } else if (k > 0 && worse(values[0], indices[0], v, index)) {
+            values[0] = v;
+            indices[0] = index;
+            siftDown(0, size);
+        }
+    }
+
+    /**
+     * Sort the kept elements from the best to the worst, read them with value() / index().
+     */
+    void sort() {
+        for (int n = size - 1; n > 0; n--) {
+            swap(0, n);
+            siftDown(0, n);
+        }
+    }
+
+    Object value(int i) {
+        return values[i];
+    }
+
+    int index(int i) {
+        return indices[i];
+    }
+
+    // true if the element (a, i) is worse than (b, j)
+    private boolean worse(Object a, int i, Object b, int j) {
+        int c = comparator.compare(a, b);
+        if (c == 0) {
+            return i > j;
+        }
+        return largest ? c < 0 : c > 0;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!worse(values[i], indices[i], values[parent], indices[parent])) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i, int n) {
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= n) {
+                break;
+            }
+            if (child + 1 < n && worse(values[child + 1], indices[child + 1], values[child], indices[child])) {
+                child++;
+            }
+            if (!worse(values[child], indices[child], values[i], indices[i])) {
+                break;
+            }
+            swap(i, child);
+            i = child;
+        }
+    }
+
+    private void swap(int i, int j) {
+        Object v = values[i];
+        values[i] = values[j];
+        values[j] = v;
+        int index = indices[i];
+        indices[i] = indices[j];
+        indices[j] = index;
+    }
+}
@@ -0,0 +1,143 @@
+package com.hive.udf;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing (linear probing) hash set of byte sequences, e.g. the UTF-8
+ * bytes of Text values. Added keys are copied into a single growing byte arena,
+ * so no per-key objects are allocated and clear() makes the set reusable across
+ * rows without allocation. Like LongHashSet, the table, entries and arena are
+ * reallocated at the size of the last row on clear() when they are far larger.
+ */
+final class BytesHashSet {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int DEFAULT_ARENA = DEFAULT_CAPACITY * 8;
+
+    private int[] table;  // entry index + 1, 0 marks an empty slot
+    private int mask;
+
+    private int[] hashes;
+    private int[] starts;
+    private int[] lengths;
+    private int size;
+
+    private byte[] arena;
+    private int arenaLength;
+
+    BytesHashSet() {
+        table = new int[DEFAULT_CAPACITY];
+        mask = DEFAULT_CAPACITY - 1;
+        hashes = new int[DEFAULT_CAPACITY / 2];
+        starts = new int[DEFAULT_CAPACITY / 2];
+        lengths = new int[DEFAULT_CAPACITY / 2];
+        arena = new byte[DEFAULT_ARENA];
+    }
+
+    /**
+     * Add bytes[start, start + length) to the set, returns true if they were not in the set.
+     */
+    boolean add(byte[] bytes, int start, int length) {
+        int h = hash(bytes, start, length);
+        int i = h & mask;
+        int e;
+        while ((e = table[i]) != 0) {
+            if (matches(e - 1, h, bytes, start, length)) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+
+        if (size == hashes.length) {
+            int n = size << 1;
+            hashes = Arrays.copyOf(hashes, n);
+            starts = Arrays.copyOf(starts, n);
+            lengths = Arrays.copyOf(lengths, n);
+        }
+        if (arenaLength + length > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length << 1, arenaLength + length));
+        }
+
+        System.arraycopy(bytes, start, arena, arenaLength, length);
+        hashes[size] = h;
+        starts[size] = arenaLength;
+        lengths[size] = length;
+        arenaLength += length;
+        table[i] = ++size;
+
+        if (size * 2 > table.length) {
+            rehash(table.length << 1);
+        }
+        return true;
+    }
+
+    boolean contains(byte[] bytes, int start, int length) {
+        int h = hash(bytes, start, length);
+        int i = h & mask;
+        int e;
+        while ((e = table[i]) != 0) {
+            if (matches(e - 1, h, bytes, start, length)) {
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        if (size > 0) {
+            int capacity = LongHashSet.capacityFor(size);
+            if (table.length > capacity * LongHashSet.SHRINK_RATIO) {
+                table = new int[capacity];
+                mask = capacity - 1;
+                hashes = new int[capacity / 2];
+                starts = new int[capacity / 2];
+                lengths = new int[capacity / 2];
+            } else {
+                Arrays.fill(table, 0);
+            }
+            int arenaCapacity = Math.max(DEFAULT_ARENA, arenaLength);
+            if (arena.length > arenaCapacity * LongHashSet.SHRINK_RATIO) {
+                arena = new byte[arenaCapacity];
+            }
+            size = 0;
+            arenaLength = 0;
+        }
+    }
+
+    private boolean matches(int e, int h, byte[] bytes, int start, int length) {
+        if (hashes[e] != h || lengths[e] != length) {
+            return false;
+        }
+        int s = starts[e];
+        for (int j = 0; j < length; j++) {
+            if (arena[s + j] != bytes[start + j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rehash(int capacity) {
+        table = new int[capacity];
+        mask = capacity - 1;
+        for (int e = 0; e < size; e++) {
+            int i = hashes[e] & mask;
+            while (table[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            table[i] = e + 1;
+        }
+    }
+
+    private static int hash(byte[] bytes, int start, int length) {
+        int h = 1;
+        for (int j = start; j < start + length; j++) {
+            h = 31 * h + bytes[j];
+        }
+        return LongHashSet.mix(h);
+    }
+}
@@ -5,14 +5,27 @@ import org.apache.hadoop.hive.ql.metadata.HiveException;
 import org.apache.hadoop.hive.ql.parse.SemanticException;
 import org.apache.hadoop.hive.ql.udf.generic.AbstractGenericUDAFResolver;
 import org.apache.hadoop.hive.ql.udf.generic.GenericUDAFEvaluator;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDAFEvaluator.AbstractAggregationBuffer;
 import org.apache.hadoop.hive.ql.udf.generic.GenericUDAFEvaluator.AggregationBuffer;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDAFEvaluator.AggregationType;
+import org.apache.hadoop.hive.ql.util.JavaDataModel;
+import org.apache.hadoop.hive.serde2.objectinspector.ListObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.MapObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils.ObjectInspectorCopyOption;
+import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.StructField;
+import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.io.HiveDecimalWritable;
 import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.Text;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -20,9 +33,13 @@ import java.util.Map;
 /**
  * Aggregate all maps into a single map. If there are multiple value for same
  * key, result is the sum of those values.
- * Because the mappers must keep all of the data in memory, if your data is
- * non-trivially large you should set hive.map.aggr=false to ensure that
- * Combine_Map is only executed in the reduce phase.
+ * The aggregation buffer reports its size to Hive (estimable buffer), so the
+ * map side hash aggregation flushes its partial maps before running out of
+ * memory and hive.map.aggr can stay enabled.
+ * Partial aggregations are struct&lt;keys:array&lt;K&gt;, sums:array&lt;double&gt;&gt; in the order of
+ * the hash map, which serializes as two flat arrays. Partials are merged into the hash map with
+ * one lookup per entry, so merging P partials costs their total size whatever the size of the state.
+ * combine_maps_stats (CombineMapsStats) shares this evaluator and keeps more columns per key.
  */
 @Description(
         name = "combine_map",
@@ -35,79 +52,362 @@ public class CombineMaps extends AbstractGenericUDAFResolver {
         return new Evaluator();
     }
 
-    public static class State implements AggregationBuffer {
-        HashMap<Object, Double> map = new HashMap<Object, Double>();
+    /**
+     * Running statistics of the values of a key, updated in place. A key only seen with null
+     * values has a count of 0 and null statistics. combine_map only reads the sum.
+     */
+    static final class KeyStats {
+        double sum;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        long count;
+
+        void add(double v) {
+            sum += v;
+            min = Math.min(min, v);
+            max = Math.max(max, v);
+            count++;
+        }
+    }
+
+    @AggregationType(estimable = true)
+    public static class State extends AbstractAggregationBuffer {
+        private static final JavaDataModel MODEL = JavaDataModel.get();
+        private static final int STATS_SIZE = MODEL.object() + 4 * MODEL.primitive2();
+
+        // Keys are standard writable copies of the input keys (standard java objects if the key is not primitive)
+        HashMap<Object, KeyStats> map = new HashMap<Object, KeyStats>();
+        private long entriesSize;  // keys, values and hash map entries, maintained on insert
+
+        /**
+         * Insert a new key, the key must not be in the map yet.
+         */
+        KeyStats insert(Object key) {
+            KeyStats keyStats = new KeyStats();
+            map.put(key, keyStats);
+            entriesSize += MODEL.hashMapEntry() + keySize(key) + STATS_SIZE;
+            return keyStats;
+        }
+
+        void clear() {
+            map.clear();
+            entriesSize = 0;
+        }
+
+        /**
+         * Estimated footprint of a key of the state (also used for the keys of SpaceSaving).
+         */
+        static long keySize(Object key) {
+            if (key instanceof Text) {
+                return MODEL.object() + MODEL.primitive1() + MODEL.ref()
+                        + MODEL.lengthForByteArrayOfSize(((Text) key).getLength());
+            }
+            if (key instanceof BytesWritable) {
+                return MODEL.object() + MODEL.primitive1() + MODEL.ref()
+                        + MODEL.lengthForByteArrayOfSize(((BytesWritable) key).getLength());
+            }
+            if (key instanceof HiveDecimalWritable) {
+                return MODEL.object() + MODEL.lengthOfDecimal();
+            }
+            if (key instanceof String) {
+                return MODEL.lengthForStringOfLength(((String) key).length());
+            }
+            return MODEL.object() + MODEL.primitive2();  // boxed or writable primitive
+        }
+
+        @Override
+        public int estimate() {
+            // the table of a HashMap is a power of two with a 0.75 load factor
+            int tableSize = Integer.highestOneBit(Math.max(16, (int) (map.size() / 0.75f)) * 2 - 1);
+            long size = MODEL.object() + MODEL.primitive2() + MODEL.ref()
+                    + MODEL.object() + 4 * MODEL.primitive1() + 4 * MODEL.ref()  // the HashMap itself
+                    + MODEL.lengthForObjectArrayOfSize(tableSize)
+                    + entriesSize;
+            return (int) Math.min(size, Integer.MAX_VALUE);
+        }
     }
 
     public static class Evaluator extends GenericUDAFEvaluator {
-        ObjectInspector inputOI;
-        MapObjectInspector internalMergeOI;
+        // Columns kept per key and in the partials
+        static final int SUM = 0;
+        static final int MIN = 1;
+        static final int MAX = 2;
+        static final int COUNT = 3;
+        static final String[] COLUMN_NAMES = {"sums", "mins", "maxs", "counts"};
+
+        // Set from the arguments in PARTIAL1 / COMPLETE and from the partial fields otherwise
+        boolean[] columns = new boolean[COLUMN_NAMES.length];
+
+        MapObjectInspector inputOI;
+        ObjectInspector keyOI;
+        PrimitiveObjectInspector primitiveKeyOI;  // null if the key is not primitive
+        ObjectInspector stateKeyOI;
+        NumericReader valueReader;
+
+        // PARTIAL2 / FINAL: parallel array partials
+        StructObjectInspector partialOI;
+        StructField keysField;
+        ListObjectInspector partialKeysOI;
+        StructField[] columnFields = new StructField[COLUMN_NAMES.length];
+        ListObjectInspector[] columnOIs = new ListObjectInspector[COLUMN_NAMES.length];
+        NumericReader[] columnReaders = new NumericReader[COLUMN_NAMES.length];
+        transient Object[] partialColumns;
+
+        // Reused across groups, the output is consumed before the next group is terminated
+        transient HashMap<Object, Object> output;
+        transient ArrayList<Object> outputKeys;
+        transient ArrayList<Object>[] outputColumns;
+        transient Object[] partialOutput;
 
         @Override
         public ObjectInspector init(Mode m, ObjectInspector[] parameters) throws HiveException {
             super.init(m, parameters);
+            Arrays.fill(columns, false);
             if (m == Mode.COMPLETE || m == Mode.PARTIAL1) {
                 inputOI = (MapObjectInspector) parameters[0];
+                keyOI = inputOI.getMapKeyObjectInspector();
+                valueReader = NumericReader.ofMapValue(inputOI.getMapValueObjectInspector(), 0);
+                initColumns(parameters);
             } else {
-                internalMergeOI = (MapObjectInspector) parameters[0];
+                partialOI = (StructObjectInspector) parameters[0];
+                keysField = partialOI.getStructFieldRef("keys");
+                partialKeysOI = (ListObjectInspector) keysField.getFieldObjectInspector();
+                keyOI = partialKeysOI.getListElementObjectInspector();
+                for (StructField field : partialOI.getAllStructFieldRefs()) {
+                    int c = Arrays.asList(COLUMN_NAMES).indexOf(field.getFieldName());
+                    if (c >= 0) {
+                        columns[c] = true;
+                        columnFields[c] = field;
+                        columnOIs[c] = (ListObjectInspector) field.getFieldObjectInspector();
+                        columnReaders[c] = NumericReader.of(columnOIs[c].getListElementObjectInspector(), 0);
+                    }
+                }
+            }
+
+            if (keyOI.getCategory() == ObjectInspector.Category.PRIMITIVE) {
+                primitiveKeyOI = (PrimitiveObjectInspector) keyOI;
+                stateKeyOI = ObjectInspectorUtils.getStandardObjectInspector(keyOI, ObjectInspectorCopyOption.WRITABLE);
+            } else {
+                primitiveKeyOI = null;
+                stateKeyOI = ObjectInspectorUtils.getStandardObjectInspector(keyOI, ObjectInspectorCopyOption.JAVA);
+            }
+
+            partialColumns = new Object[COLUMN_NAMES.length];
+            output = new HashMap<Object, Object>();
+            outputKeys = new ArrayList<Object>();
+            outputColumns = new ArrayList[COLUMN_NAMES.length];
+
+            if (m == Mode.PARTIAL1 || m == Mode.PARTIAL2) {
+                // partials keep the writable keys of the state and one array per column
+                ArrayList<String> fname = new ArrayList<String>();
+                ArrayList<ObjectInspector> foi = new ArrayList<ObjectInspector>();
+                ArrayList<Object> partial = new ArrayList<Object>();
+                fname.add("keys");
+                foi.add(ObjectInspectorFactory.getStandardListObjectInspector(stateKeyOI));
+                partial.add(outputKeys);
+                for (int c = 0; c < COLUMN_NAMES.length; c++) {
+                    if (columns[c]) {
+                        outputColumns[c] = new ArrayList<Object>();
+                        fname.add(COLUMN_NAMES[c]);
+                        foi.add(ObjectInspectorFactory.getStandardListObjectInspector(c == COUNT
+                                ? PrimitiveObjectInspectorFactory.javaLongObjectInspector
+                                : PrimitiveObjectInspectorFactory.javaDoubleObjectInspector));
+                        partial.add(outputColumns[c]);
+                    }
+                }
+                partialOutput = partial.toArray();
+                return ObjectInspectorFactory.getStandardStructObjectInspector(fname, foi);
             }
 
+            // the final result has java keys
             ObjectInspector returnType = ObjectInspectorFactory.getStandardMapObjectInspector(
-                    ((MapObjectInspector) parameters[0]).getMapKeyObjectInspector(),
-                    PrimitiveObjectInspectorFactory.javaDoubleObjectInspector);
+                    ObjectInspectorUtils.getStandardObjectInspector(keyOI, ObjectInspectorCopyOption.JAVA),
+                    valueObjectInspector());
             return returnType;
         }
 
+        /**
+         * Columns to keep for the arguments of PARTIAL1 / COMPLETE, combine_map only sums.
+         */
+        void initColumns(ObjectInspector[] parameters) throws HiveException {
+            columns[SUM] = true;
+        }
+
+        /**
+         * Inspector of the values of the final map.
+         */
+        ObjectInspector valueObjectInspector() {
+            return PrimitiveObjectInspectorFactory.javaDoubleObjectInspector;
+        }
+
+        /**
+         * Value of a key in the final map.
+         */
+        Object value(KeyStats keyStats) {
+            return keyStats.count == 0 ? null : (Object) keyStats.sum;
+        }
+
         @Override
         public AggregationBuffer getNewAggregationBuffer() throws HiveException {
             return new State();
         }
 
-        private void reduce(Map<Object, Double> ma, Map<Object, Object> mb) {
-            mb.forEach((k, v) -> {
+        private Object copyKey(Object k) {
+            return ObjectInspectorUtils.copyToStandardObject(k, keyOI, primitiveKeyOI != null
+                    ? ObjectInspectorCopyOption.WRITABLE
+                    : ObjectInspectorCopyOption.JAVA);
+        }
+
+        /**
+         * Statistics of key k in the state, inserted if new. The lookup uses the writable behind
+         * the key, which is only copied on first insert.
+         */
+        private KeyStats lookup(State state, Object k) {
+            Object probe = primitiveKeyOI != null
+                    ? primitiveKeyOI.getPrimitiveWritableObject(k)
+                    : ObjectInspectorUtils.copyToStandardObject(k, keyOI, ObjectInspectorCopyOption.JAVA);
+
+            KeyStats keyStats = state.map.get(probe);
+            if (keyStats == null) {
+                keyStats = state.insert(primitiveKeyOI != null ? copyKey(k) : probe);
+            }
+            return keyStats;
+        }
+
+        /**
+         * Add the entries of map into the state with one lookup per key.
+         */
+        private void reduce(State state, Object map) {
+            Map<?, ?> mb = inputOI.getMap(map);
+            if (mb == null) {
+                return;
+            }
+            for (Map.Entry<?, ?> e : mb.entrySet()) {
+                KeyStats keyStats = lookup(state, e.getKey());
+
+                Object v = e.getValue();
+                if (v != null) {
+                    keyStats.add(valueReader.getDouble(v));
+                }
+            }
+        }
+
+        /**
+         * Add entry j of the partial columns to the statistics of its key. Without a count column,
+         * count only tells whether a non null value was seen.
+         */
+        private void mergeEntry(KeyStats keyStats, Object[] partialColumns, int j) {
+            boolean seen = false;
+            for (int c = SUM; c < COUNT; c++) {
+                if (!columns[c]) {
+                    continue;
+                }
+                Object v = columnOIs[c].getListElement(partialColumns[c], j);
                 if (v == null) {
-                    if(! ma.containsKey(k))
-                        ma.put(k, null);
+                    continue;
+                }
+                double d = columnReaders[c].getDouble(v);
+                if (c == SUM) {
+                    keyStats.sum += d;
+                } else if (c == MIN) {
+                    keyStats.min = Math.min(keyStats.min, d);
                 } else {
+                    keyStats.max = Math.max(keyStats.max, d);
+                }
+                seen = true;
+            }
 
-                    if(ma.containsKey(k))
-                        ma.put(k, ma.get(k) + Double.parseDouble(v.toString()));
-                    else
-                        ma.put(k, Double.parseDouble(v.toString()));
+            if (columns[COUNT]) {
+                Object v = columnOIs[COUNT].getListElement(partialColumns[COUNT], j);
+                if (v != null) {
+                    keyStats.count += columnReaders[COUNT].getLong(v);
                 }
-            });
+            } else if (seen) {
+                keyStats.count++;
+            }
+        }
+
+        /**
+         * Add the entries of a partial into the state with one lookup per key.
+         */
+        private void mergePartial(State state, Object partial) {
+            Object keys = partialOI.getStructFieldData(partial, keysField);
+            int m = keys == null ? 0 : partialKeysOI.getListLength(keys);
+            if (m == 0) {
+                return;
+            }
+            for (int c = 0; c < COLUMN_NAMES.length; c++) {
+                partialColumns[c] = columns[c] ? partialOI.getStructFieldData(partial, columnFields[c]) : null;
+            }
+
+            for (int j = 0; j < m; j++) {
+                mergeEntry(lookup(state, partialKeysOI.getListElement(keys, j)), partialColumns, j);
+            }
         }
 
         @Override
         public void iterate(AggregationBuffer agg, Object[] input) throws HiveException {
             if (input[0] != null) {
-                State state = (State) agg;
-                reduce(state.map, (Map<Object, Object>) ObjectInspectorUtils.copyToStandardObject(input[0], inputOI));
+                reduce((State) agg, input[0]);
             }
         }
 
         @Override
         public void merge(AggregationBuffer agg, Object partial) throws HiveException {
             if (partial != null) {
-                State state = (State) agg;
-                Map<Object, Object> pset = (Map<Object, Object>) ObjectInspectorUtils.copyToStandardObject(partial, internalMergeOI);
-                reduce(state.map, pset);
+                mergePartial((State) agg, partial);
             }
         }
 
         @Override
         public void reset(AggregationBuffer agg) throws HiveException {
-            ((State) agg).map.clear();
+            ((State) agg).clear();
         }
 
         @Override
         public Object terminate(AggregationBuffer agg) throws HiveException {
-            return ((State) agg).map;
+            State state = (State) agg;
+            output.clear();
+            for (Map.Entry<Object, KeyStats> e : state.map.entrySet()) {
+                output.put(javaKey(e.getKey()), value(e.getValue()));
+            }
+            return output;
         }
 
         @Override
         public Object terminatePartial(AggregationBuffer agg) throws HiveException {
-            return ((State) agg).map;
+            State state = (State) agg;
+            outputKeys.clear();
+            for (ArrayList<Object> column : outputColumns) {
+                if (column != null) {
+                    column.clear();
+                }
+            }
+            for (Map.Entry<Object, KeyStats> e : state.map.entrySet()) {
+                addPartialEntry(e.getKey(), e.getValue());
+            }
+            return partialOutput;
+        }
+
+        private void addPartialEntry(Object key, KeyStats keyStats) {
+            outputKeys.add(key);
+            boolean isNull = keyStats.count == 0;
+            if (columns[SUM]) {
+                outputColumns[SUM].add(isNull ? null : keyStats.sum);
+            }
+            if (columns[MIN]) {
+                outputColumns[MIN].add(isNull ? null : keyStats.min);
+            }
+            if (columns[MAX]) {
+                outputColumns[MAX].add(isNull ? null : keyStats.max);
+            }
+            if (columns[COUNT]) {
+                outputColumns[COUNT].add(keyStats.count);
+            }
+        }
+
+        private Object javaKey(Object key) {
+            return primitiveKeyOI != null ? ((PrimitiveObjectInspector) stateKeyOI).getPrimitiveJavaObject(key) : key;
         }
     }
-}
\ No newline at end of file
+}
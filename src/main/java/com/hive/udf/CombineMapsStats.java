@@ -0,0 +1,127 @@
+package com.hive.udf;
+
+import org.apache.hadoop.hive.ql.exec.Description;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.parse.SemanticException;
+import org.apache.hadoop.hive.ql.udf.generic.AbstractGenericUDAFResolver;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDAFEvaluator;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDAFParameterInfo;
+import org.apache.hadoop.hive.serde2.objectinspector.ConstantObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
+
+import java.util.Arrays;
+
+
+/**
+ * Aggregate maps like combine_map, but keep sum, min, max and count of the values of each key
+ * and return map&lt;K, struct&lt;sum, min, max, count, avg&gt;&gt; in a single pass.
+ * The optional second argument is a constant comma separated list of the reductions to compute
+ * (sum, min, max, count, avg; all by default). Only the columns those need are kept per key and
+ * shuffled, the fields of the struct that can not be derived from them are null (avg also
+ * yields sum and count). Shares the partials and merge of CombineMaps.
+ */
+@Description(
+        name = "combine_maps_stats",
+        value = "_FUNC_(map [, reductions]) - aggregate given maps into a map of per key sum, min, max, count and avg",
+        extended = "reductions is a constant comma separated list of sum, min, max, count and avg (default all).\n"
+                + "Example:\n > select _FUNC_(keyword_cost, 'min,max,avg') from src group by campaign;")
+
+public class CombineMapsStats extends AbstractGenericUDAFResolver {
+    @Override
+    public GenericUDAFEvaluator getEvaluator(GenericUDAFParameterInfo info) throws SemanticException {
+        ObjectInspector[] parameters = info.getParameterObjectInspectors();
+        if (parameters.length == 2 && !(parameters[1] instanceof ConstantObjectInspector)) {
+            throw new UDFArgumentTypeException(1,
+                    "A constant string is expected as reductions by function combine_maps_stats.");
+        }
+        return getEvaluator(info.getParameters());
+    }
+
+    @Override
+    public GenericUDAFEvaluator getEvaluator(TypeInfo[] parameters) throws SemanticException {
+        if (parameters.length != 1 && parameters.length != 2) {
+            throw new UDFArgumentTypeException(parameters.length - 1,
+                    "One or two arguments are expected.");
+        }
+
+        if (parameters[0].getCategory() != ObjectInspector.Category.MAP) {
+            throw new UDFArgumentTypeException(0,
+                    "Only map type arguments are accepted but "
+                            + parameters[0].getTypeName() + " is passed.");
+        }
+
+        if (parameters.length == 2 && !"string".equals(parameters[1].getTypeName())) {
+            throw new UDFArgumentTypeException(1,
+                    "Only string type arguments are accepted as reductions but "
+                            + parameters[1].getTypeName() + " is passed.");
+        }
+
+        return new Evaluator();
+    }
+
+    public static class Evaluator extends CombineMaps.Evaluator {
+        @Override
+        void initColumns(ObjectInspector[] parameters) throws HiveException {
+            if (parameters.length < 2) {
+                Arrays.fill(columns, true);
+                return;
+            }
+
+            Object reductions = ((ConstantObjectInspector) parameters[1]).getWritableConstantValue();
+            if (reductions == null) {
+                throw new UDFArgumentException("The reductions of combine_maps_stats cannot be null.");
+            }
+            for (String reduction : reductions.toString().split(",")) {
+                switch (reduction.trim().toLowerCase()) {
+                    case "sum":
+                        columns[SUM] = true;
+                        break;
+                    case "min":
+                        columns[MIN] = true;
+                        break;
+                    case "max":
+                        columns[MAX] = true;
+                        break;
+                    case "count":
+                        columns[COUNT] = true;
+                        break;
+                    case "avg":
+                        columns[SUM] = true;
+                        columns[COUNT] = true;
+                        break;
+                    default:
+                        throw new UDFArgumentException("Unknown reduction \"" + reduction.trim()
+                                + "\" for combine_maps_stats, expected sum, min, max, count or avg.");
+                }
+            }
+        }
+
+        @Override
+        ObjectInspector valueObjectInspector() {
+            return ObjectInspectorFactory.getStandardStructObjectInspector(
+                    Arrays.asList("sum", "min", "max", "count", "avg"),
+                    Arrays.<ObjectInspector>asList(
+                            PrimitiveObjectInspectorFactory.javaDoubleObjectInspector,
+                            PrimitiveObjectInspectorFactory.javaDoubleObjectInspector,
+                            PrimitiveObjectInspectorFactory.javaDoubleObjectInspector,
+                            PrimitiveObjectInspectorFactory.javaLongObjectInspector,
+                            PrimitiveObjectInspectorFactory.javaDoubleObjectInspector));
+        }
+
+        @Override
+        Object value(CombineMaps.KeyStats keyStats) {
+            boolean isNull = keyStats.count == 0;
+            return new Object[]{
+                    columns[SUM] && !isNull ? keyStats.sum : null,
+                    columns[MIN] && !isNull ? keyStats.min : null,
+                    columns[MAX] && !isNull ? keyStats.max : null,
+                    columns[COUNT] ? keyStats.count : null,
+                    columns[SUM] && columns[COUNT] && !isNull ? keyStats.sum / keyStats.count : null};
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.hive.udf;
+
+import org.apache.hadoop.hive.ql.exec.Description;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.parse.SemanticException;
+import org.apache.hadoop.hive.ql.udf.generic.AbstractGenericUDAFResolver;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDAFEvaluator;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDAFParameterInfo;
+import org.apache.hadoop.hive.serde2.objectinspector.ConstantObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ListObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.MapObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils.ObjectInspectorCopyOption;
+import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.StructField;
+import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorUtils;
+import org.apache.hadoop.hive.serde2.typeinfo.PrimitiveTypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
+import org.apache.hadoop.io.IntWritable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * Aggregate maps like combine_map, but only keep the k keys with the largest sums,
+ * in O(k) memory per group whatever the number of distinct keys.
+ * Backed by a mergeable weighted Space-Saving summary (see SpaceSaving): the returned sum of
+ * a key is an upper bound of its true sum and sum - error a lower bound. Any key whose sum
+ * is larger than (sum of all values) / k is returned. Values must be non-negative, nulls are
+ * skipped.
+ */
+@Description(
+        name = "combine_maps_topk",
+        value = "_FUNC_(map, k) - aggregate given maps into a map of the k keys with the largest sums",
+        extended = "k is a constant integer. Returns map<K, struct<sum:double, error:double>>, the true sum of\n"
+                + "a key is within [sum - error, sum].\n"
+                + "Example:\n > select _FUNC_(keyword_clicks, 1000) from src group by campaign;")
+
+public class CombineMapsTopK extends AbstractGenericUDAFResolver {
+    @Override
+    public GenericUDAFEvaluator getEvaluator(GenericUDAFParameterInfo info) throws SemanticException {
+        ObjectInspector[] parameters = info.getParameterObjectInspectors();
+        if (parameters.length != 2) {
+            throw new UDFArgumentTypeException(parameters.length - 1,
+                    "Exactly two arguments are expected.");
+        }
+        if (!(parameters[1] instanceof ConstantObjectInspector)) {
+            throw new UDFArgumentTypeException(1,
+                    "A constant integer is expected as k by function combine_maps_topk.");
+        }
+        return getEvaluator(info.getParameters());
+    }
+
+    @Override
+    public GenericUDAFEvaluator getEvaluator(TypeInfo[] parameters) throws SemanticException {
+        if (parameters.length != 2) {
+            throw new UDFArgumentTypeException(parameters.length - 1,
+                    "Exactly two arguments are expected.");
+        }
+
+        if (parameters[0].getCategory() != ObjectInspector.Category.MAP) {
+            throw new UDFArgumentTypeException(0,
+                    "Only map type arguments are accepted but "
+                            + parameters[0].getTypeName() + " is passed.");
+        }
+
+        if (parameters[1].getCategory() != ObjectInspector.Category.PRIMITIVE) {
+            throw new UDFArgumentTypeException(1,
+                    "Only integer type arguments are accepted as k but "
+                            + parameters[1].getTypeName() + " is passed.");
+        }
+        switch (((PrimitiveTypeInfo) parameters[1]).getPrimitiveCategory()) {
+            case BYTE:
+            case SHORT:
+            case INT:
+            case LONG:
+                return new Evaluator();
+            default:
+                throw new UDFArgumentTypeException(1,
+                        "Only integer type arguments are accepted as k but "
+                                + parameters[1].getTypeName() + " is passed.");
+        }
+    }
+
+    @GenericUDAFEvaluator.AggregationType(estimable = true)
+    static class TopKAgg extends GenericUDAFEvaluator.AbstractAggregationBuffer {
+        SpaceSaving summary;  // created on the first partial in PARTIAL2 / FINAL, k comes with it
+
+        @Override
+        public int estimate() {
+            return summary == null ? 0 : (int) Math.min(summary.estimate(), Integer.MAX_VALUE);
+        }
+    }
+
+    public static class Evaluator extends GenericUDAFEvaluator {
+        // For PARTIAL1 and COMPLETE
+        private MapObjectInspector inputOI;
+        private NumericReader valueReader;
+        private int k;
+
+        // For PARTIAL2 and FINAL
+        private transient StructObjectInspector soi;
+        private transient StructField kField;
+        private transient StructField keysField;
+        private transient StructField countsField;
+        private transient StructField errorsField;
+        private transient ListObjectInspector keysOI;
+        private transient ListObjectInspector countsOI;
+        private transient ListObjectInspector errorsOI;
+        private transient NumericReader countReader;
+        private transient NumericReader errorReader;
+
+        private ObjectInspector keyOI;
+        private PrimitiveObjectInspector primitiveKeyOI;  // null if the key is not primitive
+        private ObjectInspector stateKeyOI;
+
+        // Reused across groups
+        private transient Object[] partialResult;
+        private transient HashMap<Object, Object> result;
+
+        @Override
+        public ObjectInspector init(Mode m, ObjectInspector[] parameters) throws HiveException {
+            super.init(m, parameters);
+
+            // init input
+            if (m == Mode.PARTIAL1 || m == Mode.COMPLETE) {
+                inputOI = (MapObjectInspector) parameters[0];
+                keyOI = inputOI.getMapKeyObjectInspector();
+                valueReader = NumericReader.of(inputOI.getMapValueObjectInspector(), 0);
+                k = PrimitiveObjectInspectorUtils.getInt(
+                        ((ConstantObjectInspector) parameters[1]).getWritableConstantValue(),
+                        (PrimitiveObjectInspector) parameters[1]);
+                if (k <= 0) {
+                    throw new UDFArgumentException("k of combine_maps_topk must be positive, but " + k + " is passed.");
+                }
+            } else {
+                soi = (StructObjectInspector) parameters[0];
+                kField = soi.getStructFieldRef("k");
+                keysField = soi.getStructFieldRef("keys");
+                countsField = soi.getStructFieldRef("counts");
+                errorsField = soi.getStructFieldRef("errors");
+                keysOI = (ListObjectInspector) keysField.getFieldObjectInspector();
+                countsOI = (ListObjectInspector) countsField.getFieldObjectInspector();
+                errorsOI = (ListObjectInspector) errorsField.getFieldObjectInspector();
+                countReader = NumericReader.of(countsOI.getListElementObjectInspector(), 0);
+                errorReader = NumericReader.of(errorsOI.getListElementObjectInspector(), 0);
+                keyOI = keysOI.getListElementObjectInspector();
+            }
+
+            if (keyOI.getCategory() == ObjectInspector.Category.PRIMITIVE) {
+                primitiveKeyOI = (PrimitiveObjectInspector) keyOI;
+                stateKeyOI = ObjectInspectorUtils.getStandardObjectInspector(keyOI, ObjectInspectorCopyOption.WRITABLE);
+            } else {
+                primitiveKeyOI = null;
+                stateKeyOI = ObjectInspectorUtils.getStandardObjectInspector(keyOI, ObjectInspectorCopyOption.JAVA);
+            }
+
+            // init output
+            if (m == Mode.PARTIAL1 || m == Mode.PARTIAL2) {
+                // k and the counters of the summary as parallel arrays
+                partialResult = new Object[]{new IntWritable(0), new ArrayList<Object>(),
+                        new ArrayList<Object>(), new ArrayList<Object>()};
+                return ObjectInspectorFactory.getStandardStructObjectInspector(
+                        Arrays.asList("k", "keys", "counts", "errors"),
+                        Arrays.<ObjectInspector>asList(
+                                PrimitiveObjectInspectorFactory.writableIntObjectInspector,
+                                ObjectInspectorFactory.getStandardListObjectInspector(stateKeyOI),
+                                ObjectInspectorFactory.getStandardListObjectInspector(
+                                        PrimitiveObjectInspectorFactory.javaDoubleObjectInspector),
+                                ObjectInspectorFactory.getStandardListObjectInspector(
+                                        PrimitiveObjectInspectorFactory.javaDoubleObjectInspector)));
+            }
+
+            result = new HashMap<Object, Object>();
+            return ObjectInspectorFactory.getStandardMapObjectInspector(
+                    ObjectInspectorUtils.getStandardObjectInspector(keyOI, ObjectInspectorCopyOption.JAVA),
+                    ObjectInspectorFactory.getStandardStructObjectInspector(
+                            Arrays.asList("sum", "error"),
+                            Arrays.<ObjectInspector>asList(
+                                    PrimitiveObjectInspectorFactory.javaDoubleObjectInspector,
+                                    PrimitiveObjectInspectorFactory.javaDoubleObjectInspector)));
+        }
+
+        @Override
+        public AggregationBuffer getNewAggregationBuffer() throws HiveException {
+            TopKAgg agg = new TopKAgg();
+            reset(agg);
+            return agg;
+        }
+
+        @Override
+        public void reset(AggregationBuffer agg) throws HiveException {
+            TopKAgg myagg = (TopKAgg) agg;
+            if (myagg.summary != null) {
+                myagg.summary.clear();
+            } else if (k > 0) {
+                myagg.summary = new SpaceSaving(k);
+            }
+        }
+
+        private Object probe(Object key) {
+            return primitiveKeyOI != null
+                    ? primitiveKeyOI.getPrimitiveWritableObject(key)
+                    : ObjectInspectorUtils.copyToStandardObject(key, keyOI, ObjectInspectorCopyOption.JAVA);
+        }
+
+        private Object copyKey(Object key, Object probe) {
+            return primitiveKeyOI != null
+                    ? ObjectInspectorUtils.copyToStandardObject(key, keyOI, ObjectInspectorCopyOption.WRITABLE)
+                    : probe;
+        }
+
+        @Override
+        public void iterate(AggregationBuffer agg, Object[] parameters) throws HiveException {
+            Map<?, ?> map = inputOI.getMap(parameters[0]);
+            if (map == null) {
+                return;
+            }
+
+            SpaceSaving summary = ((TopKAgg) agg).summary;
+            for (Map.Entry<?, ?> e : map.entrySet()) {
+                Object v = e.getValue();
+                if (v == null) {
+                    continue;
+                }
+                double w = valueReader.getDouble(v);
+                if (w < 0) {
+                    throw new HiveException("combine_maps_topk only accepts non-negative values but " + w + " is passed.");
+                }
+
+                Object probe = probe(e.getKey());
+                int slot = summary.find(probe);
+                if (slot >= 0) {
+                    summary.increment(slot, w);
+                } else if (w > 0) {  // a zero weight would only evict the smallest counter
+                    summary.insert(copyKey(e.getKey(), probe), w);
+                }
+            }
+        }
+
+        @Override
+        public void merge(AggregationBuffer agg, Object partial) throws HiveException {
+            if (partial == null) {
+                return;
+            }
+
+            TopKAgg myagg = (TopKAgg) agg;
+            if (myagg.summary == null) {
+                myagg.summary = new SpaceSaving(PrimitiveObjectInspectorUtils.getInt(
+                        soi.getStructFieldData(partial, kField),
+                        (PrimitiveObjectInspector) kField.getFieldObjectInspector()));
+            }
+            SpaceSaving summary = myagg.summary;
+
+            Object keys = soi.getStructFieldData(partial, keysField);
+            Object counts = soi.getStructFieldData(partial, countsField);
+            Object errors = soi.getStructFieldData(partial, errorsField);
+            int n = keys == null ? 0 : keysOI.getListLength(keys);
+            if (n == 0) {
+                return;
+            }
+
+            double otherMin = 0;
+            if (n >= summary.k()) {
+                otherMin = Double.POSITIVE_INFINITY;
+                for (int i = 0; i < n; i++) {
+                    otherMin = Math.min(otherMin, countReader.getDouble(countsOI.getListElement(counts, i)));
+                }
+            }
+            double thisMin = summary.minCount();
+
+            summary.beginMerge(otherMin);
+            for (int i = 0; i < n; i++) {
+                Object key = keysOI.getListElement(keys, i);
+                Object probe = probe(key);
+                int slot = summary.find(probe);
+                summary.mergeCounter(slot, slot >= 0 ? null : copyKey(key, probe),
+                        countReader.getDouble(countsOI.getListElement(counts, i)),
+                        errorReader.getDouble(errorsOI.getListElement(errors, i)),
+                        otherMin, thisMin);
+            }
+            summary.endMerge();
+        }
+
+        @Override
+        public Object terminatePartial(AggregationBuffer agg) throws HiveException {
+            SpaceSaving summary = ((TopKAgg) agg).summary;
+            if (summary == null) {  // PARTIAL2 without any partial
+                return null;
+            }
+
+            ((IntWritable) partialResult[0]).set(summary.k());
+            ArrayList<Object> keys = (ArrayList<Object>) partialResult[1];
+            ArrayList<Object> counts = (ArrayList<Object>) partialResult[2];
+            ArrayList<Object> errors = (ArrayList<Object>) partialResult[3];
+            keys.clear();
+            counts.clear();
+            errors.clear();
+            for (int i = 0; i < summary.size(); i++) {
+                keys.add(summary.key(i));
+                counts.add(summary.count(i));
+                errors.add(summary.error(i));
+            }
+            return partialResult;
+        }
+
+        @Override
+        public Object terminate(AggregationBuffer agg) throws HiveException {
+            SpaceSaving summary = ((TopKAgg) agg).summary;
+            result.clear();
+            if (summary == null) {
+                return result;
+            }
+
+            for (int i = 0; i < summary.size(); i++) {
+                Object key = primitiveKeyOI != null
+                        ? ((PrimitiveObjectInspector) stateKeyOI).getPrimitiveJavaObject(summary.key(i))
+                        : summary.key(i);
+                result.put(key, new Object[]{summary.count(i), summary.error(i)});
+            }
+            return result;
+        }
+    }
+}
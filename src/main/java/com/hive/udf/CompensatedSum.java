@@ -0,0 +1,63 @@
+package com.hive.udf;
+
+import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
+import org.apache.hadoop.hive.serde2.objectinspector.ConstantObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+
+/**
+ * Neumaier's variant of Kahan summation: the low order bits lost by each addition are
+ * accumulated in a separate compensation term, so the error does not grow with the number
+ * of terms (and, unlike Kahan, also when a term is larger than the running sum).
+ * About 4 flops per term instead of 1.
+ */
+final class CompensatedSum {
+    static final String FAST = "fast";
+    static final String COMPENSATED = "compensated";
+
+    private double sum;
+    private double c;  // compensation
+
+    void reset() {
+        sum = 0;
+        c = 0;
+    }
+
+    void add(double x) {
+        double t = sum + x;
+        if (Math.abs(sum) >= Math.abs(x)) {
+            c += (sum - t) + x;
+        } else {
+            c += (x - t) + sum;
+        }
+        sum = t;
+    }
+
+    double get() {
+        return sum + c;
+    }
+
+    /**
+     * Read the constant summation mode argument: 'fast' (plain summation, the default) or
+     * 'compensated'. Returns true for the compensated mode.
+     */
+    static boolean isCompensated(ObjectInspector modeOI, int argIdx, String function) throws UDFArgumentException {
+        if (!(modeOI instanceof ConstantObjectInspector)
+                || modeOI.getCategory() != ObjectInspector.Category.PRIMITIVE) {
+            throw new UDFArgumentTypeException(argIdx,
+                    "A constant string ('" + FAST + "' or '" + COMPENSATED + "') is expected as mode by function "
+                            + function + ".");
+        }
+
+        Object mode = ((ConstantObjectInspector) modeOI).getWritableConstantValue();
+        String name = mode == null ? FAST : mode.toString().trim().toLowerCase();
+        if (FAST.equals(name)) {
+            return false;
+        }
+        if (COMPENSATED.equals(name)) {
+            return true;
+        }
+        throw new UDFArgumentException("The mode of " + function + " must be '" + FAST + "' or '"
+                + COMPENSATED + "', but '" + mode + "' is passed.");
+    }
+}
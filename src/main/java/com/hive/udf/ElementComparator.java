@@ -0,0 +1,144 @@
+package com.hive.udf;
+
+import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils;
+import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.StringObjectInspector;
+import org.apache.hadoop.io.Text;
+
+/**
+ * Comparator of non-null array elements, specialized at initialize() for the element type:
+ * integral elements are compared as longs, floating point elements as doubles, writable
+ * strings by their UTF-8 bytes and anything else with ObjectInspectorUtils.compare.
+ * The order is the one of ObjectInspectorUtils.compare.
+ * <p>
+ * Like ElementSet, a comparator can compare objects of several object inspectors of the same
+ * type (e.g. an array element and a value), each one addressed by its index ("side").
+ */
+abstract class ElementComparator {
+
+    abstract int compare(Object a, int sideA, Object b, int sideB);
+
+    int compare(Object a, Object b) {
+        return compare(a, 0, b, 0);
+    }
+
+    private enum Kind {LONG, DOUBLE, TEXT, OBJECT}
+
+    private static Kind kindOf(ObjectInspector oi) {
+        if (oi.getCategory() != ObjectInspector.Category.PRIMITIVE) {
+            return Kind.OBJECT;
+        }
+
+        PrimitiveObjectInspector poi = (PrimitiveObjectInspector) oi;
+        switch (poi.getPrimitiveCategory()) {
+            case BYTE:
+            case SHORT:
+            case INT:
+            case LONG:
+                return Kind.LONG;
+            case FLOAT:
+            case DOUBLE:
+                return Kind.DOUBLE;
+            case STRING:
+                // java strings are compared as Strings by ObjectInspectorUtils
+                return poi.preferWritable() ? Kind.TEXT : Kind.OBJECT;
+            default:
+                return Kind.OBJECT;
+        }
+    }
+
+    /**
+     * Create a comparator for objects inspected by the given object inspectors (one per side).
+     */
+    static ElementComparator create(ObjectInspector... ois) throws UDFArgumentTypeException {
+        Kind kind = kindOf(ois[0]);
+        for (int i = 1; i < ois.length; i++) {
+            Kind other = kindOf(ois[i]);
+            if (other == kind) {
+                continue;
+            }
+            // integral and floating point sides are compared as doubles
+            kind = (kind == Kind.LONG || kind == Kind.DOUBLE) && (other == Kind.LONG || other == Kind.DOUBLE)
+                    ? Kind.DOUBLE : Kind.OBJECT;
+        }
+
+        switch (kind) {
+            case LONG:
+                return new LongComparator(readers(ois));
+            case DOUBLE:
+                return new DoubleComparator(readers(ois));
+            case TEXT:
+                StringObjectInspector[] sois = new StringObjectInspector[ois.length];
+                for (int i = 0; i < ois.length; i++) {
+                    sois[i] = (StringObjectInspector) ois[i];
+                }
+                return new TextComparator(sois);
+            default:
+                return new ObjectComparator(ois);
+        }
+    }
+
+    private static NumericReader[] readers(ObjectInspector[] ois) throws UDFArgumentTypeException {
+        NumericReader[] readers = new NumericReader[ois.length];
+        for (int i = 0; i < ois.length; i++) {
+            readers[i] = NumericReader.forComparison(ois[i], i);
+        }
+        return readers;
+    }
+
+    static final class LongComparator extends ElementComparator {
+        private final NumericReader[] readers;
+
+        LongComparator(NumericReader[] readers) {
+            this.readers = readers;
+        }
+
+        @Override
+        int compare(Object a, int sideA, Object b, int sideB) {
+            return Long.compare(readers[sideA].getLong(a), readers[sideB].getLong(b));
+        }
+    }
+
+    static final class DoubleComparator extends ElementComparator {
+        private final NumericReader[] readers;
+
+        DoubleComparator(NumericReader[] readers) {
+            this.readers = readers;
+        }
+
+        @Override
+        int compare(Object a, int sideA, Object b, int sideB) {
+            return Double.compare(readers[sideA].getDouble(a), readers[sideB].getDouble(b));
+        }
+    }
+
+    static final class TextComparator extends ElementComparator {
+        private final StringObjectInspector[] ois;
+
+        TextComparator(StringObjectInspector[] ois) {
+            this.ois = ois;
+        }
+
+        @Override
+        int compare(Object a, int sideA, Object b, int sideB) {
+            Text ta = ois[sideA].getPrimitiveWritableObject(a);
+            Text tb = ois[sideB].getPrimitiveWritableObject(b);
+            return ta.compareTo(tb);
+        }
+    }
+
+    static final class ObjectComparator extends ElementComparator {
+        private final ObjectInspector[] ois;
+
+        ObjectComparator(ObjectInspector[] ois) {
+            this.ois = ois;
+        }
+
+        @Override
+        int compare(Object a, int sideA, Object b, int sideB) {
+            return ObjectInspectorUtils.compare(a, ois[sideA], b, ois[sideB]);
+        }
+    }
+}
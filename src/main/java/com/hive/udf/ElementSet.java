@@ -0,0 +1,221 @@
+package com.hive.udf;
+
+import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils;
+import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.StringObjectInspector;
+import org.apache.hadoop.io.Text;
+
+import java.util.HashSet;
+
+/**
+ * Hash set of array elements, specialized at initialize() for the element type:
+ * integral and floating point elements go to a primitive LongHashSet, writable
+ * strings to a BytesHashSet of their UTF-8 bytes, anything else to a HashSet of
+ * standard java objects.
+ * <p>
+ * A set can be fed from several object inspectors of the same type (e.g. the two
+ * arrays of a set operation), each one addressed by its index ("side").
+ */
+abstract class ElementSet {
+
+    abstract boolean add(Object o, int side);
+
+    abstract boolean contains(Object o, int side);
+
+    abstract int size();
+
+    abstract void clear();
+
+    boolean add(Object o) {
+        return add(o, 0);
+    }
+
+    boolean contains(Object o) {
+        return contains(o, 0);
+    }
+
+    private enum Kind {LONG, DOUBLE, TEXT, OBJECT}
+
+    private static Kind kindOf(ObjectInspector oi) {
+        if (oi.getCategory() != ObjectInspector.Category.PRIMITIVE) {
+            return Kind.OBJECT;
+        }
+
+        PrimitiveObjectInspector poi = (PrimitiveObjectInspector) oi;
+        switch (poi.getPrimitiveCategory()) {
+            case BYTE:
+            case SHORT:
+            case INT:
+            case LONG:
+                return Kind.LONG;
+            case FLOAT:
+            case DOUBLE:
+                return Kind.DOUBLE;
+            case STRING:
+                // java strings would need a Text copy per element, hashing the String is cheaper
+                return poi.preferWritable() ? Kind.TEXT : Kind.OBJECT;
+            default:
+                return Kind.OBJECT;
+        }
+    }
+
+    /**
+     * Create a set for elements inspected by the given object inspectors (one per side).
+     */
+    static ElementSet create(ObjectInspector... ois) throws UDFArgumentTypeException {
+        Kind kind = kindOf(ois[0]);
+        for (int i = 1; i < ois.length; i++) {
+            if (kindOf(ois[i]) != kind) {
+                kind = Kind.OBJECT;
+            }
+        }
+
+        switch (kind) {
+            case LONG:
+                return new LongElementSet(readers(ois));
+            case DOUBLE:
+                return new DoubleElementSet(readers(ois));
+            case TEXT:
+                StringObjectInspector[] sois = new StringObjectInspector[ois.length];
+                for (int i = 0; i < ois.length; i++) {
+                    sois[i] = (StringObjectInspector) ois[i];
+                }
+                return new TextElementSet(sois);
+            default:
+                return new ObjectElementSet(ois);
+        }
+    }
+
+    private static NumericReader[] readers(ObjectInspector[] ois) throws UDFArgumentTypeException {
+        NumericReader[] readers = new NumericReader[ois.length];
+        for (int i = 0; i < ois.length; i++) {
+            readers[i] = NumericReader.forComparison(ois[i], i);
+        }
+        return readers;
+    }
+
+    static final class LongElementSet extends ElementSet {
+        private final NumericReader[] readers;
+        private final LongHashSet set = new LongHashSet();
+
+        LongElementSet(NumericReader[] readers) {
+            this.readers = readers;
+        }
+
+        @Override
+        boolean add(Object o, int side) {
+            return set.add(readers[side].getLong(o));
+        }
+
+        @Override
+        boolean contains(Object o, int side) {
+            return set.contains(readers[side].getLong(o));
+        }
+
+        @Override
+        int size() {
+            return set.size();
+        }
+
+        @Override
+        void clear() {
+            set.clear();
+        }
+    }
+
+    static final class DoubleElementSet extends ElementSet {
+        private final NumericReader[] readers;
+        private final LongHashSet set = new LongHashSet();
+
+        DoubleElementSet(NumericReader[] readers) {
+            this.readers = readers;
+        }
+
+        private static long bits(double d) {
+            // -0.0 == 0.0, so they must share a key; NaNs are collapsed by doubleToLongBits
+            return Double.doubleToLongBits(d == 0.0d ? 0.0d : d);
+        }
+
+        @Override
+        boolean add(Object o, int side) {
+            return set.add(bits(readers[side].getDouble(o)));
+        }
+
+        @Override
+        boolean contains(Object o, int side) {
+            return set.contains(bits(readers[side].getDouble(o)));
+        }
+
+        @Override
+        int size() {
+            return set.size();
+        }
+
+        @Override
+        void clear() {
+            set.clear();
+        }
+    }
+
+    static final class TextElementSet extends ElementSet {
+        private final StringObjectInspector[] ois;
+        private final BytesHashSet set = new BytesHashSet();
+
+        TextElementSet(StringObjectInspector[] ois) {
+            this.ois = ois;
+        }
+
+        @Override
+        boolean add(Object o, int side) {
+            Text t = ois[side].getPrimitiveWritableObject(o);
+            return set.add(t.getBytes(), 0, t.getLength());
+        }
+
+        @Override
+        boolean contains(Object o, int side) {
+            Text t = ois[side].getPrimitiveWritableObject(o);
+            return set.contains(t.getBytes(), 0, t.getLength());
+        }
+
+        @Override
+        int size() {
+            return set.size();
+        }
+
+        @Override
+        void clear() {
+            set.clear();
+        }
+    }
+
+    static final class ObjectElementSet extends ElementSet {
+        private final ObjectInspector[] ois;
+        private final HashSet<Object> set = new HashSet<Object>();
+
+        ObjectElementSet(ObjectInspector[] ois) {
+            this.ois = ois;
+        }
+
+        @Override
+        boolean add(Object o, int side) {
+            return set.add(ObjectInspectorUtils.copyToStandardJavaObject(o, ois[side]));
+        }
+
+        @Override
+        boolean contains(Object o, int side) {
+            return set.contains(ObjectInspectorUtils.copyToStandardJavaObject(o, ois[side]));
+        }
+
+        @Override
+        int size() {
+            return set.size();
+        }
+
+        @Override
+        void clear() {
+            set.clear();
+        }
+    }
+}
@@ -6,6 +6,7 @@ import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
 import org.apache.hadoop.hive.ql.metadata.HiveException;
 import org.apache.hadoop.hive.ql.udf.generic.GenericUDF;
 import org.apache.hadoop.hive.serde.serdeConstants;
+import org.apache.hadoop.hive.serde2.objectinspector.ConstantObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
@@ -20,6 +21,13 @@ public class HexEncrypt extends GenericUDF {
     private static final String HEX_CHARS = "0123456789abcdef";  //
 
     PrimitiveObjectInspector outputOI;
+    private transient int[] constantKey;  // nibbles of a literal key, null if the key is not constant
+
+    // Reused across rows
+    private transient Text result;
+    private transient char[] chars;
+    private transient byte[] bytes;
+    private transient int length;
 
     public HexEncrypt() {}
 
@@ -53,6 +61,14 @@ public class HexEncrypt extends GenericUDF {
                     + "\"" + arguments[1].getTypeName() + "\" is found");
         }
 
+        constantKey = null;
+        if (arguments[1] instanceof ConstantObjectInspector) {  // decode a literal key only once
+            Object key = ((ConstantObjectInspector) arguments[1]).getWritableConstantValue();
+            if (key != null) {
+                constantKey = decodeKey(key.toString());
+            }
+        }
+
         outputOI = PrimitiveObjectInspectorFactory.writableStringObjectInspector;
 
         return outputOI;
@@ -65,38 +81,129 @@ public class HexEncrypt extends GenericUDF {
             return null;
         }
 
-        Object o_key = arguments[1].get();
-
-        String val = o_val.toString().toLowerCase();
-        String key = o_key.toString().toLowerCase();
+        int[] key = constantKey;
+        if (key == null) {
+            Object o_key = arguments[1].get();
+            key = decodeKey(o_key.toString());
+        }
 
-        int nk = key.length();
-        int nv = val.length();
+        int nk = key.length;
         if (nk <= 0) {
             throw new HiveException("Key cannot be empty.");
         }
 
-        char[] res = new char[nv];
+        boolean ascii = lowerCase(o_val);
+        int nv = length;
+
         int k = 0;
         for (int i = 0; i < nv; i++) {
-            char c = val.charAt(i);
-            int bv = HEX_CHARS.indexOf(c);
-            if (bv < 0) {
-                res[i] = c;
-            } else {
-                char s = key.charAt(k % nk);
-                int bk = HEX_CHARS.indexOf(s);
+            char c = chars[i];
+            int bv = nibble(c);
+            if (bv >= 0) {
+                int bk = key[k % nk];
                 if (bk < 0) {
-                    throw new HiveException(String.valueOf(s) + " is not a valid hex char.");
+                    throw new HiveException(String.valueOf(keyChar(bk)) + " is not a valid hex char.");
                 }
 
-                res[i] =  Integer.toHexString(bv ^ bk).charAt(0);
+                chars[i] = HEX_CHARS.charAt(bv ^ bk);
 
                 k++;
             }
         }
 
-        return new Text(String.valueOf(res));
+        if (result == null) {  // evaluate() can be called without initialize()
+            result = new Text();
+        }
+        if (ascii) {
+            for (int i = 0; i < nv; i++) {
+                bytes[i] = (byte) chars[i];
+            }
+            result.set(bytes, 0, nv);
+        } else {
+            result.set(new String(chars, 0, nv));
+        }
+        return result;
+    }
+
+    /**
+     * Copy the lower cased value into chars[0, length). ASCII values (Text or String) are
+     * lower cased in place without any allocation, others go through String.toLowerCase().
+     * Returns true if the value is ASCII.
+     */
+    private boolean lowerCase(Object o_val) {
+        boolean ascii = true;
+        if (o_val instanceof Text) {
+            Text t = (Text) o_val;
+            byte[] b = t.getBytes();
+            length = t.getLength();
+            ensureCapacity(length);
+            for (int i = 0; i < length && ascii; i++) {
+                ascii = b[i] >= 0;
+                chars[i] = toLowerAscii((char) b[i]);
+            }
+        } else if (o_val instanceof String) {
+            String str = (String) o_val;
+            length = str.length();
+            ensureCapacity(length);
+            for (int i = 0; i < length && ascii; i++) {
+                char c = str.charAt(i);
+                ascii = c < 0x80;
+                chars[i] = toLowerAscii(c);
+            }
+        } else {
+            ascii = false;
+        }
+
+        if (!ascii) {
+            String val = o_val.toString().toLowerCase();
+            length = val.length();
+            ensureCapacity(length);
+            val.getChars(0, length, chars, 0);
+        }
+        return ascii;
+    }
+
+    private void ensureCapacity(int n) {
+        if (chars == null || chars.length < n) {
+            chars = new char[Math.max(n, 64)];
+            bytes = new byte[chars.length];
+        }
+    }
+
+    private static char toLowerAscii(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    /**
+     * Value of a lower case hex char, -1 if the char is not a hex char.
+     */
+    private static int nibble(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        return -1;
+    }
+
+    /**
+     * Decode the (lower cased) key into nibbles. An invalid char is kept as -(char + 1)
+     * so that the error is only raised when the char is actually used.
+     */
+    private static int[] decodeKey(String key) {
+        String lower = key.toLowerCase();
+        int[] nibbles = new int[lower.length()];
+        for (int i = 0; i < nibbles.length; i++) {
+            char c = lower.charAt(i);
+            int b = nibble(c);
+            nibbles[i] = b < 0 ? -(c + 1) : b;
+        }
+        return nibbles;
+    }
+
+    private static char keyChar(int nibble) {
+        return (char) (-nibble - 1);
     }
 
     @Override
@@ -0,0 +1,135 @@
+package com.hive.udf;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing (linear probing) hash set of primitive longs. The slot value 0
+ * marks an empty slot, the key 0 itself is tracked by a separate flag.
+ * The table is kept at most half full. clear() makes the set reusable across rows
+ * without allocation, unless the table is far larger than the last row needed (e.g. after
+ * one very large row): it is then reallocated at the size of that row, so clearing costs
+ * the size of the row rather than the size of the largest row seen.
+ */
+final class LongHashSet {
+    private static final int DEFAULT_CAPACITY = 16;
+    static final int SHRINK_RATIO = 8;  // shrink on clear() when the table is this much too large
+
+    private long[] keys;
+    private int mask;
+    private int size;  // number of non-zero keys in the table
+    private boolean hasZero;
+
+    LongHashSet() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    LongHashSet(int expected) {
+        int capacity = capacityFor(expected);
+        keys = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Smallest table (a power of two) holding the expected number of keys at most half full.
+     */
+    static int capacityFor(int expected) {
+        int capacity = DEFAULT_CAPACITY;
+        while (capacity < expected * 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    /**
+     * Add a key to the set, returns true if the key was not in the set.
+     */
+    boolean add(long key) {
+        if (key == 0) {
+            if (hasZero) {
+                return false;
+            }
+            hasZero = true;
+            return true;
+        }
+
+        int i = slot(key);
+        long k;
+        while ((k = keys[i]) != 0) {
+            if (k == key) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+
+        keys[i] = key;
+        if (++size * 2 > keys.length) {
+            rehash(keys.length << 1);
+        }
+        return true;
+    }
+
+    boolean contains(long key) {
+        if (key == 0) {
+            return hasZero;
+        }
+
+        int i = slot(key);
+        long k;
+        while ((k = keys[i]) != 0) {
+            if (k == key) {
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    int size() {
+        return hasZero ? size + 1 : size;
+    }
+
+    void clear() {
+        if (size > 0) {
+            int capacity = capacityFor(size);
+            if (keys.length > capacity * SHRINK_RATIO) {
+                keys = new long[capacity];
+                mask = capacity - 1;
+            } else {
+                Arrays.fill(keys, 0L);
+            }
+            size = 0;
+        }
+        hasZero = false;
+    }
+
+    private int slot(long key) {
+        return mix(key) & mask;
+    }
+
+    private void rehash(int capacity) {
+        long[] old = keys;
+        keys = new long[capacity];
+        mask = capacity - 1;
+        for (long k : old) {
+            if (k != 0) {
+                int i = slot(k);
+                while (keys[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = k;
+            }
+        }
+    }
+
+    /**
+     * Murmur3 64-bit finalizer folded to an int.
+     */
+    static int mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
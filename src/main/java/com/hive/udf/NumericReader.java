@@ -0,0 +1,372 @@
+package com.hive.udf;
+
+import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
+import org.apache.hadoop.hive.serde2.io.ByteWritable;
+import org.apache.hadoop.hive.serde2.io.DoubleWritable;
+import org.apache.hadoop.hive.serde2.io.ShortWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.ByteObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.DoubleObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.FloatObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.HiveDecimalObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.IntObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.JavaDoubleObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.JavaFloatObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.JavaIntObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.JavaLongObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.LongObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorUtils;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.ShortObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.WritableByteObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.WritableDoubleObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.WritableFloatObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.WritableIntObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.WritableLongObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.WritableShortObjectInspector;
+import org.apache.hadoop.io.FloatWritable;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+
+/**
+ * Reads a numeric primitive as a double (or long) without going through its string form.
+ * The reader is resolved once from the element object inspector in initialize(), so the
+ * per row path is a direct unboxing of the writable / java object.
+ */
+public abstract class NumericReader {
+
+    public abstract double getDouble(Object o);
+
+    public long getLong(Object o) {
+        return (long) getDouble(o);
+    }
+
+    /**
+     * Return true if the inspected type is integral (tinyint, smallint, int or bigint).
+     */
+    public boolean isIntegral() {
+        return false;
+    }
+
+    /**
+     * Check if the object inspector is a numeric primitive which can be read by a reader.
+     */
+    public static boolean isNumeric(ObjectInspector oi) {
+        if (oi.getCategory() != ObjectInspector.Category.PRIMITIVE) {
+            return false;
+        }
+
+        switch (((PrimitiveObjectInspector) oi).getPrimitiveCategory()) {
+            case BYTE:
+            case SHORT:
+            case INT:
+            case LONG:
+            case FLOAT:
+            case DOUBLE:
+            case DECIMAL:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Resolve the reader of map values: numeric values are read directly, other primitives
+     * (e.g. strings) are parsed like PrimitiveObjectInspectorUtils.getDouble.
+     *
+     * @param oi     object inspector of the map values
+     * @param argIdx index of the UDF argument, used in the error message
+     */
+    public static NumericReader ofMapValue(ObjectInspector oi, int argIdx) throws UDFArgumentTypeException {
+        if (isNumeric(oi)) {
+            return of(oi, argIdx);
+        }
+        if (oi.getCategory() != ObjectInspector.Category.PRIMITIVE) {
+            throw new UDFArgumentTypeException(argIdx, "Only primitive type map values are accepted but "
+                    + oi.getTypeName() + " is passed.");
+        }
+        final PrimitiveObjectInspector poi = (PrimitiveObjectInspector) oi;
+        return new NumericReader() {
+            @Override
+            public double getDouble(Object o) {
+                return PrimitiveObjectInspectorUtils.getDouble(o, poi);
+            }
+        };
+    }
+
+    /**
+     * Resolve the reader of a numeric object inspector. Floats are read through their shortest
+     * decimal form (see DecimalFloatReader), so sums and averages stay the same as with the string parsing.
+     *
+     * @param oi     object inspector of the values to read
+     * @param argIdx index of the UDF argument, used in the error message
+     */
+    public static NumericReader of(ObjectInspector oi, int argIdx) throws UDFArgumentTypeException {
+        NumericReader reader = forComparison(oi, argIdx);
+        if (((PrimitiveObjectInspector) oi).getPrimitiveCategory() == PrimitiveObjectInspector.PrimitiveCategory.FLOAT) {
+            return new DecimalFloatReader(reader);
+        }
+        return reader;
+    }
+
+    /**
+     * Resolve the reader of a numeric object inspector for comparing or hashing values. Floats
+     * are widened exactly with (double) f, which keeps their order and equality and allocates
+     * nothing, but e.g. reads 0.1f as 0.10000000149011612.
+     *
+     * @param oi     object inspector of the values to read
+     * @param argIdx index of the UDF argument, used in the error message
+     */
+    public static NumericReader forComparison(ObjectInspector oi, int argIdx) throws UDFArgumentTypeException {
+        if (!isNumeric(oi)) {
+            throw new UDFArgumentTypeException(argIdx,
+                    "Only numeric type arguments are accepted but "
+                            + oi.getTypeName() + " is passed.");
+        }
+
+        switch (((PrimitiveObjectInspector) oi).getPrimitiveCategory()) {
+            case BYTE:
+                if (oi instanceof WritableByteObjectInspector) {
+                    return new WritableByteReader();
+                }
+                return new ByteReader((ByteObjectInspector) oi);
+            case SHORT:
+                if (oi instanceof WritableShortObjectInspector) {
+                    return new WritableShortReader();
+                }
+                return new ShortReader((ShortObjectInspector) oi);
+            case INT:
+                if (oi instanceof WritableIntObjectInspector) {
+                    return new WritableIntReader();
+                }
+                if (oi instanceof JavaIntObjectInspector) {
+                    return new JavaIntReader();
+                }
+                return new IntReader((IntObjectInspector) oi);
+            case LONG:
+                if (oi instanceof WritableLongObjectInspector) {
+                    return new WritableLongReader();
+                }
+                if (oi instanceof JavaLongObjectInspector) {
+                    return new JavaLongReader();
+                }
+                return new LongReader((LongObjectInspector) oi);
+            case FLOAT:
+                if (oi instanceof WritableFloatObjectInspector) {
+                    return new WritableFloatReader();
+                }
+                if (oi instanceof JavaFloatObjectInspector) {
+                    return new JavaFloatReader();
+                }
+                return new FloatReader((FloatObjectInspector) oi);
+            case DOUBLE:
+                if (oi instanceof WritableDoubleObjectInspector) {
+                    return new WritableDoubleReader();
+                }
+                if (oi instanceof JavaDoubleObjectInspector) {
+                    return new JavaDoubleReader();
+                }
+                return new DoubleReader((DoubleObjectInspector) oi);
+            default:
+                return new DecimalReader((HiveDecimalObjectInspector) oi);
+        }
+    }
+
+    static abstract class IntegralReader extends NumericReader {
+        @Override
+        public double getDouble(Object o) {
+            return getLong(o);
+        }
+
+        @Override
+        public abstract long getLong(Object o);
+
+        @Override
+        public boolean isIntegral() {
+            return true;
+        }
+    }
+
+    static final class WritableByteReader extends IntegralReader {
+        @Override
+        public long getLong(Object o) {
+            return ((ByteWritable) o).get();
+        }
+    }
+
+    static final class ByteReader extends IntegralReader {
+        private final ByteObjectInspector oi;
+
+        ByteReader(ByteObjectInspector oi) {
+            this.oi = oi;
+        }
+
+        @Override
+        public long getLong(Object o) {
+            return oi.get(o);
+        }
+    }
+
+    static final class WritableShortReader extends IntegralReader {
+        @Override
+        public long getLong(Object o) {
+            return ((ShortWritable) o).get();
+        }
+    }
+
+    static final class ShortReader extends IntegralReader {
+        private final ShortObjectInspector oi;
+
+        ShortReader(ShortObjectInspector oi) {
+            this.oi = oi;
+        }
+
+        @Override
+        public long getLong(Object o) {
+            return oi.get(o);
+        }
+    }
+
+    static final class WritableIntReader extends IntegralReader {
+        @Override
+        public long getLong(Object o) {
+            return ((IntWritable) o).get();
+        }
+    }
+
+    static final class JavaIntReader extends IntegralReader {
+        @Override
+        public long getLong(Object o) {
+            return ((Integer) o).intValue();
+        }
+    }
+
+    static final class IntReader extends IntegralReader {
+        private final IntObjectInspector oi;
+
+        IntReader(IntObjectInspector oi) {
+            this.oi = oi;
+        }
+
+        @Override
+        public long getLong(Object o) {
+            return oi.get(o);
+        }
+    }
+
+    static final class WritableLongReader extends IntegralReader {
+        @Override
+        public long getLong(Object o) {
+            return ((LongWritable) o).get();
+        }
+    }
+
+    static final class JavaLongReader extends IntegralReader {
+        @Override
+        public long getLong(Object o) {
+            return ((Long) o).longValue();
+        }
+    }
+
+    static final class LongReader extends IntegralReader {
+        private final LongObjectInspector oi;
+
+        LongReader(LongObjectInspector oi) {
+            this.oi = oi;
+        }
+
+        @Override
+        public long getLong(Object o) {
+            return oi.get(o);
+        }
+    }
+
+    static final class WritableFloatReader extends NumericReader {
+        @Override
+        public double getDouble(Object o) {
+            return ((FloatWritable) o).get();
+        }
+    }
+
+    static final class JavaFloatReader extends NumericReader {
+        @Override
+        public double getDouble(Object o) {
+            return ((Float) o).floatValue();
+        }
+    }
+
+    static final class FloatReader extends NumericReader {
+        private final FloatObjectInspector oi;
+
+        FloatReader(FloatObjectInspector oi) {
+            this.oi = oi;
+        }
+
+        @Override
+        public double getDouble(Object o) {
+            return oi.get(o);
+        }
+    }
+
+    /**
+     * Reads floats through their shortest decimal form like the string parsing this reader
+     * replaced (0.1f is read as 0.1, not 0.10000000149011612), so arithmetic results stay the
+     * same. This allocates a String per value.
+     */
+    static final class DecimalFloatReader extends NumericReader {
+        private final NumericReader reader;  // exact float reader
+
+        DecimalFloatReader(NumericReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public double getDouble(Object o) {
+            return widen((float) reader.getDouble(o));
+        }
+    }
+
+    static double widen(float f) {
+        return Double.parseDouble(Float.toString(f));
+    }
+
+    static final class WritableDoubleReader extends NumericReader {
+        @Override
+        public double getDouble(Object o) {
+            return ((DoubleWritable) o).get();
+        }
+    }
+
+    static final class JavaDoubleReader extends NumericReader {
+        @Override
+        public double getDouble(Object o) {
+            return ((Double) o).doubleValue();
+        }
+    }
+
+    static final class DoubleReader extends NumericReader {
+        private final DoubleObjectInspector oi;
+
+        DoubleReader(DoubleObjectInspector oi) {
+            this.oi = oi;
+        }
+
+        @Override
+        public double getDouble(Object o) {
+            return oi.get(o);
+        }
+    }
+
+    static final class DecimalReader extends NumericReader {
+        private final HiveDecimalObjectInspector oi;
+
+        DecimalReader(HiveDecimalObjectInspector oi) {
+            this.oi = oi;
+        }
+
+        @Override
+        public double getDouble(Object o) {
+            return oi.getPrimitiveJavaObject(o).doubleValue();
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.hive.udf;
+
+import org.apache.hadoop.hive.ql.exec.MapredContext;
+import org.apache.hadoop.hive.serde2.objectinspector.ListObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.StandardListObjectInspector;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Opt-in parallel reduction of very large numeric arrays on the common ForkJoinPool, for
+ * array_sum / array_avg / array_std / array_max / array_min.
+ *
+ * Enabled for arrays of at least hiveudf.array.parallel.threshold elements (job configuration,
+ * e.g. set hiveudf.array.parallel.threshold=1000000; disabled by default). The array is split
+ * into chunks of CHUNK elements reduced in parallel, the chunk moments are combined with the
+ * formulas of TTest.merge.
+ *
+ * Elements of a standard list (java objects or writables) are read in parallel. Other lists
+ * (e.g. LazyBinary) are read sequentially into a double[] first, because lazy inspectors parse
+ * on access and are not thread safe.
+ */
+final class ParallelReduction {
+    static final String THRESHOLD_CONF = "hiveudf.array.parallel.threshold";
+    static final int CHUNK = 1 << 16;  // elements per leaf task
+
+    private final NumericReader reader;
+
+    // Non-null elements read from a non standard list and their positions in the array
+    private double[] values = new double[0];
+    private int[] positions = new int[0];
+
+    ParallelReduction(NumericReader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Threshold from the job configuration, 0 (disabled) without a MapredContext.
+     */
+    static int threshold(MapredContext context) {
+        if (context == null || context.getJobConf() == null) {
+            return 0;
+        }
+        return context.getJobConf().getInt(THRESHOLD_CONF, 0);
+    }
+
+    /**
+     * Return true if every value of the type is exact as a double, so that extremes found by
+     * comparing doubles are the extremes of the array (not the case for bigint and decimal).
+     */
+    static boolean isExactDouble(ObjectInspector oi) {
+        if (oi.getCategory() != ObjectInspector.Category.PRIMITIVE) {
+            return false;
+        }
+
+        switch (((PrimitiveObjectInspector) oi).getPrimitiveCategory()) {
+            case BYTE:
+            case SHORT:
+            case INT:
+            case FLOAT:
+            case DOUBLE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    static boolean enabled(int threshold, int arrayLength) {
+        return threshold > 0 && arrayLength >= threshold;
+    }
+
+    /**
+     * Count, sum, mean and sum of squared deviations of a range of elements.
+     */
+    static final class Moments {
+        private final boolean compensated;
+        long n;
+        double sum;
+        double compensation;  // low order bits of the sum in the compensated mode
+        double mean;
+        double m2;
+
+        Moments(boolean compensated) {
+            this.compensated = compensated;
+        }
+
+        void add(double v) {
+            addToSum(v);
+            n++;
+            double delta = v - mean;
+            mean += delta / n;
+            m2 += delta * (v - mean);
+        }
+
+        /**
+         * Combine with the moments of the following range (TTest.merge).
+         */
+        void merge(Moments other) {
+            if (other.n == 0) {
+                return;
+            }
+            if (n == 0) {
+                n = other.n;
+                sum = other.sum;
+                compensation = other.compensation;
+                mean = other.mean;
+                m2 = other.m2;
+                return;
+            }
+
+            long count = n + other.n;
+            double delta = mean - other.mean;
+            m2 += other.m2 + delta * delta * (n / (double) count) * other.n;
+            mean = mean * (n / (double) count) + other.mean * (other.n / (double) count);
+            addToSum(other.sum);
+            compensation += other.compensation;
+            n = count;
+        }
+
+        // Neumaier's step (as in CompensatedSum) in the compensated mode
+        private void addToSum(double v) {
+            if (compensated) {
+                double t = sum + v;
+                compensation += Math.abs(sum) >= Math.abs(v) ? (sum - t) + v : (v - t) + sum;
+                sum = t;
+            } else {
+                sum += v;
+            }
+        }
+
+        double sum() {
+            return sum + compensation;
+        }
+    }
+
+    /**
+     * Moments of the non-null elements of array.
+     */
+    Moments moments(ListObjectInspector arrayOI, Object array, boolean compensated) {
+        int length = arrayOI.getListLength(array);
+        if (isStandardList(arrayOI, array)) {
+            return ForkJoinPool.commonPool().invoke(new MomentsTask((List<?>) array, null, 0, length, compensated));
+        }
+        int n = read(arrayOI, array, length);
+        return ForkJoinPool.commonPool().invoke(new MomentsTask(null, values, 0, n, compensated));
+    }
+
+    /**
+     * Position of the first largest (or smallest) non-null element of array, -1 if there is none.
+     * Values are ordered by Double.compare.
+     */
+    int extreme(ListObjectInspector arrayOI, Object array, boolean max) {
+        int length = arrayOI.getListLength(array);
+        if (isStandardList(arrayOI, array)) {
+            return ForkJoinPool.commonPool().invoke(new ExtremeTask((List<?>) array, null, 0, length, max));
+        }
+        int n = read(arrayOI, array, length);
+        int i = ForkJoinPool.commonPool().invoke(new ExtremeTask(null, values, 0, n, max));
+        return i < 0 ? -1 : positions[i];
+    }
+
+    private static boolean isStandardList(ListObjectInspector arrayOI, Object array) {
+        return arrayOI instanceof StandardListObjectInspector && array instanceof List;
+    }
+
+    private int read(ListObjectInspector arrayOI, Object array, int length) {
+        if (values.length < length) {
+            values = new double[length];
+            positions = new int[length];
+        }
+        int n = 0;
+        for (int i = 0; i < length; i++) {
+            Object v = arrayOI.getListElement(array, i);
+            if (v != null) {
+                values[n] = reader.getDouble(v);
+                positions[n++] = i;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Reduces list[lo, hi) (read with the reader) or values[lo, hi).
+     */
+    private final class MomentsTask extends RecursiveTask<Moments> {
+        private final List<?> list;
+        private final double[] vals;
+        private final int lo;
+        private final int hi;
+        private final boolean compensated;
+
+        MomentsTask(List<?> list, double[] vals, int lo, int hi, boolean compensated) {
+            this.list = list;
+            this.vals = vals;
+            this.lo = lo;
+            this.hi = hi;
+            this.compensated = compensated;
+        }
+
+        @Override
+        protected Moments compute() {
+            if (hi - lo <= CHUNK) {
+                Moments m = new Moments(compensated);
+                for (int i = lo; i < hi; i++) {
+                    if (list == null) {
+                        m.add(vals[i]);
+                    } else {
+                        Object v = list.get(i);
+                        if (v != null) {
+                            m.add(reader.getDouble(v));
+                        }
+                    }
+                }
+                return m;
+            }
+
+            int mid = (lo + hi) >>> 1;
+            MomentsTask right = new MomentsTask(list, vals, mid, hi, compensated);
+            right.fork();
+            Moments m = new MomentsTask(list, vals, lo, mid, compensated).compute();
+            m.merge(right.join());
+            return m;
+        }
+    }
+
+    /**
+     * Index of the first extreme of list[lo, hi) or values[lo, hi), -1 if all are null.
+     */
+    private final class ExtremeTask extends RecursiveTask<Integer> {
+        private final List<?> list;
+        private final double[] vals;
+        private final int lo;
+        private final int hi;
+        private final boolean max;
+
+        ExtremeTask(List<?> list, double[] vals, int lo, int hi, boolean max) {
+            this.list = list;
+            this.vals = vals;
+            this.lo = lo;
+            this.hi = hi;
+            this.max = max;
+        }
+
+        private double value(int i) {
+            return list == null ? vals[i] : reader.getDouble(list.get(i));
+        }
+
+        private boolean better(int i, int best) {
+            int c = Double.compare(value(i), value(best));
+            return max ? c > 0 : c < 0;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (hi - lo <= CHUNK) {
+                int best = -1;
+                double bestValue = 0;
+                for (int i = lo; i < hi; i++) {
+                    if (list != null && list.get(i) == null) {
+                        continue;
+                    }
+                    double v = value(i);
+                    int c = Double.compare(v, bestValue);
+                    if (best < 0 || (max ? c > 0 : c < 0)) {
+                        best = i;
+                        bestValue = v;
+                    }
+                }
+                return best;
+            }
+
+            int mid = (lo + hi) >>> 1;
+            ExtremeTask right = new ExtremeTask(list, vals, mid, hi, max);
+            right.fork();
+            int left = new ExtremeTask(list, vals, lo, mid, max).compute();
+            int r = right.join();
+            if (left < 0) {
+                return r;
+            }
+            return r >= 0 && better(r, left) ? r : left;  // ties keep the first one
+        }
+    }
+}
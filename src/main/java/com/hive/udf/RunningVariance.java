@@ -0,0 +1,40 @@
+package com.hive.udf;
+
+/**
+ * Welford's online update of the count, mean and sum of squared deviations from the mean
+ * (as in TTest). Unlike sumSq - sum * sum / n it does not cancel on large values such as
+ * epoch millis.
+ */
+final class RunningVariance {
+    private long n;
+    private double mean;
+    private double m2;  // sum of squared deviations from the mean
+
+    void reset() {
+        n = 0;
+        mean = 0;
+        m2 = 0;
+    }
+
+    void add(double x) {
+        n++;
+        double delta = x - mean;
+        mean += delta / n;
+        m2 += delta * (x - mean);
+    }
+
+    long count() {
+        return n;
+    }
+
+    double m2() {
+        return m2;
+    }
+
+    /**
+     * Sample standard deviation, NaN without values.
+     */
+    double std() {
+        return n == 0 ? Double.NaN : Math.sqrt(m2 / (n - 1));
+    }
+}
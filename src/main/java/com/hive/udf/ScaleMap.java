@@ -6,14 +6,19 @@ import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
 import org.apache.hadoop.hive.ql.metadata.HiveException;
 import org.apache.hadoop.hive.ql.udf.generic.GenericUDF;
 import org.apache.hadoop.hive.serde.serdeConstants;
+import org.apache.hadoop.hive.serde2.io.DoubleWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.ConstantObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.MapObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils;
 import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorUtils;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.BiConsumer;
 
 /**
  * Scale all element in a maps by a factor.
@@ -25,6 +30,17 @@ import java.util.Map;
 
 public class ScaleMap extends GenericUDF {
     private MapObjectInspector mapInspector;
+    private PrimitiveObjectInspector scalarInspector;
+    private boolean constantScalar;  // true if the scalar is a literal, precomputed in scalar
+    private double scalar;
+    private transient PrimitiveObjectInspector keyInspector;  // null if the key is not primitive
+    private transient NumericReader valueReader;
+    // Reused across rows: keys are standard copies of the input keys (writables unless the keys
+    // are java objects), the writable values are updated in place, so rows with the keys of the
+    // previous row allocate nothing
+    private transient HashMap<Object, DoubleWritable> outMap;
+    private transient double rowScalar;  // scalar of the current row
+    private transient BiConsumer<Object, Object> scaleEntry;
     private static final int ARG_COUNT = 2; // Number of arguments to this UDF
 
     @Override
@@ -69,34 +85,84 @@ public class ScaleMap extends GenericUDF {
         }
 
         mapInspector = (MapObjectInspector) arguments[0];
+        scalarInspector = (PrimitiveObjectInspector) arguments[1];
+
+        constantScalar = false;
+        if (arguments[1] instanceof ConstantObjectInspector) {  // convert a literal scalar only once
+            Object value = ((ConstantObjectInspector) arguments[1]).getWritableConstantValue();
+            if (value != null) {
+                constantScalar = true;
+                scalar = PrimitiveObjectInspectorUtils.getDouble(value, scalarInspector);
+            }
+        }
+
+        ObjectInspector keyOI = mapInspector.getMapKeyObjectInspector();
+        keyInspector = keyOI.getCategory() == ObjectInspector.Category.PRIMITIVE
+                ? (PrimitiveObjectInspector) keyOI : null;
+        valueReader = NumericReader.ofMapValue(mapInspector.getMapValueObjectInspector(), 0);
+        outMap = new HashMap<Object, DoubleWritable>();
+        scaleEntry = this::scale;
 
         ObjectInspector returnType = ObjectInspectorFactory.getStandardMapObjectInspector(
-                mapInspector.getMapKeyObjectInspector(),
-                PrimitiveObjectInspectorFactory.javaDoubleObjectInspector);
+                ObjectInspectorUtils.getStandardObjectInspector(keyOI),
+                PrimitiveObjectInspectorFactory.writableDoubleObjectInspector);
         return returnType;
     }
 
     @Override
-    public Map<Object, Double> evaluate(DeferredObject[] arguments) throws HiveException {
+    @SuppressWarnings("unchecked")
+    public Map<Object, DoubleWritable> evaluate(DeferredObject[] arguments) throws HiveException {
         Object o_map = arguments[0].get();
         Object o_scalar = arguments[1].get();
 
-        Map<Object, Double> outMap = new HashMap<Object, Double>();
-
-        if (o_map == null || o_scalar == null) {  // check if argument is null
+        if (o_map == null || (!constantScalar && o_scalar == null)) {  // check if argument is null
+            outMap.clear();
             return outMap;
         }
 
-        Map inMap = mapInspector.getMap(o_map);
-        double s = Double.parseDouble(o_scalar.toString());
+        Map<Object, Object> inMap = (Map<Object, Object>) mapInspector.getMap(o_map);
+        rowScalar = constantScalar ? scalar : PrimitiveObjectInspectorUtils.getDouble(o_scalar, scalarInspector);
 
-        inMap.forEach((k, v) -> {
-            if (v == null)
-                outMap.put(k, null);
-            else
-                outMap.put(k, s * Double.parseDouble(v.toString()));
-        });
+        inMap.forEach(scaleEntry);
+        if (outMap.size() != inMap.size()) {  // keys of previous rows are left, start over
+            outMap.clear();
+            inMap.forEach(scaleEntry);
+        }
 
         return outMap;
     }
+
+    /**
+     * Put the scaled value of an input entry. The lookup uses the writable (or java object)
+     * behind the input key, which is only copied when the key is new.
+     */
+    private void scale(Object k, Object v) {
+        Object probe;
+        if (keyInspector == null) {
+            probe = ObjectInspectorUtils.copyToStandardObject(k, mapInspector.getMapKeyObjectInspector());
+        } else if (keyInspector.preferWritable()) {
+            probe = keyInspector.getPrimitiveWritableObject(k);
+        } else {
+            probe = keyInspector.getPrimitiveJavaObject(k);
+        }
+
+        DoubleWritable scaled = outMap.get(probe);
+        if (v == null) {
+            if (scaled != null) {
+                outMap.put(probe, null);  // the map keeps its copy of an existing key
+            } else if (!outMap.containsKey(probe)) {
+                outMap.put(copyKey(k, probe), null);
+            }
+        } else if (scaled != null) {
+            scaled.set(rowScalar * valueReader.getDouble(v));
+        } else {
+            outMap.put(copyKey(k, probe), new DoubleWritable(rowScalar * valueReader.getDouble(v)));
+        }
+    }
+
+    private Object copyKey(Object k, Object probe) {
+        return keyInspector != null
+                ? ObjectInspectorUtils.copyToStandardObject(k, keyInspector)
+                : probe;
+    }
 }
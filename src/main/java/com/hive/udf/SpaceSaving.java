@@ -0,0 +1,262 @@
+package com.hive.udf;
+
+import org.apache.hadoop.hive.ql.util.JavaDataModel;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Weighted Space-Saving summary (Metwally et al.) of the k heaviest keys.
+ *
+ * At most k counters are kept. A key that is not monitored replaces the counter with the
+ * smallest count c, taking count c + w and error c. For every monitored key
+ * count - error &lt;= true sum &lt;= count, and any key whose true sum exceeds
+ * (total weight) / k is monitored. Weights must be non-negative.
+ *
+ * Summaries are mergeable (Agarwal et al., "Mergeable Summaries"): counters of both sides are
+ * added, a key missing on a full side is charged that side's minimum count, and the k largest
+ * counters are kept.
+ *
+ * Keys are compared with equals() / hashCode(), callers pass stable copies to insert().
+ */
+final class SpaceSaving {
+    private final int k;
+
+    // Counters live in slots [0, size), size may reach 2k during a merge
+    private Object[] keys;
+    private double[] counts;
+    private double[] errors;
+    private int size;
+    private long keysSize;  // estimated footprint of the monitored keys
+
+    // Min-heap of slots by count, heap[pos[slot]] == slot
+    private int[] heap;
+    private int[] pos;
+    private final HashMap<Object, Integer> index = new HashMap<Object, Integer>();
+
+    SpaceSaving(int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive but " + k + " is passed.");
+        }
+        this.k = k;
+        int capacity = Math.min(k, 16);
+        keys = new Object[capacity];
+        counts = new double[capacity];
+        errors = new double[capacity];
+        heap = new int[capacity];
+        pos = new int[capacity];
+    }
+
+    int k() {
+        return k;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isFull() {
+        return size >= k;
+    }
+
+    Object key(int slot) {
+        return keys[slot];
+    }
+
+    double count(int slot) {
+        return counts[slot];
+    }
+
+    double error(int slot) {
+        return errors[slot];
+    }
+
+    /**
+     * Smallest count if the summary is full, 0 otherwise (an unmonitored key's sum is at most this).
+     */
+    double minCount() {
+        return isFull() ? counts[heap[0]] : 0;
+    }
+
+    /**
+     * Slot of a monitored key, -1 if the key is not monitored.
+     */
+    int find(Object key) {
+        Integer slot = index.get(key);
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * Add w to a monitored key.
+     */
+    void increment(int slot, double w) {
+        counts[slot] += w;
+        siftDown(pos[slot]);
+    }
+
+    /**
+     * Add w to a key that is not monitored, replacing the smallest counter if the summary is full.
+     */
+    void insert(Object key, double w) {
+        if (size < k) {
+            int slot = append(key, w, 0);
+            heap[size - 1] = slot;
+            pos[slot] = size - 1;
+            siftUp(size - 1);
+            return;
+        }
+
+        int slot = heap[0];
+        double min = counts[slot];
+        index.remove(keys[slot]);
+        keysSize += CombineMaps.State.keySize(key) - CombineMaps.State.keySize(keys[slot]);
+        keys[slot] = key;
+        counts[slot] = min + w;
+        errors[slot] = min;
+        index.put(key, slot);
+        siftDown(0);
+    }
+
+    /**
+     * Start merging another summary whose smallest count (0 if not full) is otherMin: every
+     * counter is charged otherMin, use mergeCounter() for each counter of the other summary
+     * and then endMerge(). thisMin must be read with minCount() before calling this method.
+     */
+    void beginMerge(double otherMin) {
+        if (otherMin != 0) {
+            for (int i = 0; i < size; i++) {
+                counts[i] += otherMin;
+                errors[i] += otherMin;
+            }
+        }
+    }
+
+    /**
+     * Add a counter of the other summary. For a monitored key the otherMin charged by beginMerge()
+     * is replaced by the actual counter, an unmonitored key is charged thisMin.
+     * key is only used (and must then be a stable copy) if it is not monitored, see find().
+     */
+    void mergeCounter(int slot, Object key, double count, double error, double otherMin, double thisMin) {
+        if (slot >= 0) {
+            counts[slot] += count - otherMin;
+            errors[slot] += error - otherMin;
+        } else {
+            append(key, count + thisMin, error + thisMin);
+        }
+    }
+
+    /**
+     * Keep the k largest counters and rebuild the heap.
+     */
+    void endMerge() {
+        if (size > k) {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Double.compare(counts[b], counts[a]));
+
+            Object[] newKeys = new Object[keys.length];
+            double[] newCounts = new double[counts.length];
+            double[] newErrors = new double[errors.length];
+            index.clear();
+            keysSize = 0;
+            for (int i = 0; i < k; i++) {
+                int slot = order[i];
+                newKeys[i] = keys[slot];
+                keysSize += CombineMaps.State.keySize(newKeys[i]);
+                newCounts[i] = counts[slot];
+                newErrors[i] = errors[slot];
+                index.put(newKeys[i], i);
+            }
+            keys = newKeys;
+            counts = newCounts;
+            errors = newErrors;
+            size = k;
+        }
+
+        for (int i = 0; i < size; i++) {
+            heap[i] = i;
+            pos[i] = i;
+        }
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    void clear() {
+        Arrays.fill(keys, 0, size, null);
+        index.clear();
+        size = 0;
+        keysSize = 0;
+    }
+
+    /**
+     * Footprint of the summary in bytes, with the sizes of the keys actually monitored.
+     */
+    long estimate() {
+        JavaDataModel model = JavaDataModel.get();
+        // per slot: key, count, error, heap and position entries
+        long arrays = model.lengthForObjectArrayOfSize(keys.length)
+                + 2 * model.lengthForDoubleArrayOfSize(keys.length)
+                + 2 * model.lengthForIntArrayOfSize(keys.length);
+        // per counter: its hash map entry and boxed slot, plus the keys
+        long counters = size * (model.hashMapEntry() + model.object() + model.primitive1()) + keysSize;
+        return model.object() + arrays + counters;
+    }
+
+    private int append(Object key, double count, double error) {
+        if (size == keys.length) {
+            int capacity = Math.max(size + 1, Math.min(Math.max(keys.length * 2, 16), 2 * k));
+            keys = Arrays.copyOf(keys, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+            errors = Arrays.copyOf(errors, capacity);
+            heap = Arrays.copyOf(heap, capacity);
+            pos = Arrays.copyOf(pos, capacity);
+        }
+        int slot = size++;
+        keys[slot] = key;
+        keysSize += CombineMaps.State.keySize(key);
+        counts[slot] = count;
+        errors[slot] = error;
+        index.put(key, slot);
+        return slot;
+    }
+
+    private void siftUp(int i) {
+        int slot = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (counts[heap[parent]] <= counts[slot]) {
+                break;
+            }
+            heap[i] = heap[parent];
+            pos[heap[i]] = i;
+            i = parent;
+        }
+        heap[i] = slot;
+        pos[slot] = i;
+    }
+
+    private void siftDown(int i) {
+        int slot = heap[i];
+        int n = Math.min(size, k);
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= n) {
+                break;
+            }
+            if (child + 1 < n && counts[heap[child + 1]] < counts[heap[child]]) {
+                child++;
+            }
+            if (counts[heap[child]] >= counts[slot]) {
+                break;
+            }
+            heap[i] = heap[child];
+            pos[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = slot;
+        pos[slot] = i;
+    }
+}
@@ -1,87 +1,261 @@
 package com.hive.udf;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import org.apache.hadoop.hive.ql.exec.Description;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
 import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
 import org.apache.hadoop.hive.ql.metadata.HiveException;
 import org.apache.hadoop.hive.ql.parse.SemanticException;
+import org.apache.hadoop.hive.ql.parse.WindowingSpec.WindowType;
+import org.apache.hadoop.hive.ql.plan.ptf.BoundaryDef;
+import org.apache.hadoop.hive.ql.plan.ptf.WindowFrameDef;
 import org.apache.hadoop.hive.ql.udf.generic.AbstractGenericUDAFResolver;
 import org.apache.hadoop.hive.ql.udf.generic.GenericUDAFEvaluator;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDAFParameterInfo;
+import org.apache.hadoop.hive.ql.udf.generic.ISupportStreamingModeForWindowing;
 import org.apache.hadoop.hive.ql.util.JavaDataModel;
 import org.apache.hadoop.hive.serde2.io.DoubleWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.ConstantObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
 import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.StructField;
 import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.BinaryObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.primitive.DoubleObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.primitive.LongObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
 import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorUtils;
 import org.apache.hadoop.hive.serde2.typeinfo.PrimitiveTypeInfo;
 import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
+import org.apache.hadoop.io.BytesWritable;
 import org.apache.hadoop.io.LongWritable;
 
 import org.apache.commons.math3.distribution.TDistribution;
 
 
-@Description(name = "t-test", value = "_FUNC_(y,x) - Run t-test between a set of number pairs")
+/**
+ * Welch's t-test of y and x. The optional third argument is a constant comma separated list of
+ * options: 'binary' packs the partial aggregation into a fixed-width 48-byte BINARY value
+ * (xcount, ycount, xavg, yavg, xvar, yvar as big-endian longs and doubles) instead of the
+ * six-field struct, merged with direct byte access. It is not smaller than the LazyBinary
+ * struct (35 to 50 bytes with variable length counts), its only purpose is a cheaper merge on
+ * the reducers: six reads at fixed offsets instead of walking the struct fields (see
+ * TTestPartialBenchmark).
+ * 'pooled' runs Student's t-test with the
+ * pooled variance of both samples instead.
+ */
+@Description(name = "t-test", value = "_FUNC_(y,x [, options]) - Run t-test between a set of number pairs",
+        extended = "options is a constant comma separated list, 'binary' merges 48-byte binary partials,\n"
+                + "'pooled' assumes equal variances (Student's t-test).\n"
+                + "Example:\n > select _FUNC_(y, x, 'binary,pooled') from src group by experiment;")
 public class TTest extends AbstractGenericUDAFResolver {
 
+    @Override
+    public GenericUDAFEvaluator getEvaluator(GenericUDAFParameterInfo info) throws SemanticException {
+        GenericUDAFEvaluator evaluator = getEvaluator(info.getParameters());
+        if (options(info.getParameterObjectInspectors(), "t_test").contains("pooled")) {
+            return new TTestPooledEvaluator();
+        }
+        return evaluator;
+    }
+
     @Override
     public GenericUDAFEvaluator getEvaluator(TypeInfo[] parameters) throws SemanticException {
-        if (parameters.length != 2) {
+        checkParameters(parameters);
+        return new TTestGenericEvaluator();
+    }
+
+    /**
+     * Check that there are two numeric arguments and an optional string of options.
+     */
+    static void checkParameters(TypeInfo[] parameters) throws SemanticException {
+        if (parameters.length != 2 && parameters.length != 3) {
             throw new UDFArgumentTypeException(parameters.length - 1,
-                    "Exactly two arguments are expected.");
-        }
-
-        if (parameters[0].getCategory() != ObjectInspector.Category.PRIMITIVE) {
-            throw new UDFArgumentTypeException(0,
-                    "Only primitive type arguments are accepted but "
-                            + parameters[0].getTypeName() + " is passed.");
-        }
-
-        if (parameters[1].getCategory() != ObjectInspector.Category.PRIMITIVE) {
-            throw new UDFArgumentTypeException(1,
-                    "Only primitive type arguments are accepted but "
-                            + parameters[1].getTypeName() + " is passed.");
-        }
-
-        switch (((PrimitiveTypeInfo) parameters[0]).getPrimitiveCategory()) {
-            case BYTE:
-            case SHORT:
-            case INT:
-            case LONG:
-            case FLOAT:
-            case DOUBLE:
-            case TIMESTAMP:
-            case DECIMAL:
-                switch (((PrimitiveTypeInfo) parameters[1]).getPrimitiveCategory()) {
-                    case BYTE:
-                    case SHORT:
-                    case INT:
-                    case LONG:
-                    case FLOAT:
-                    case DOUBLE:
-                    case TIMESTAMP:
-                    case DECIMAL:
-                        return new TTestGenericEvaluator();
-                    case STRING:
-                    case BOOLEAN:
-                    case DATE:
-                    default:
-                        throw new UDFArgumentTypeException(1,
-                                "Only numeric type arguments are accepted but "
-                                        + parameters[1].getTypeName() + " is passed.");
-                }
-            case STRING:
-            case BOOLEAN:
-            case DATE:
-            default:
-                throw new UDFArgumentTypeException(0,
-                        "Only numeric type arguments are accepted but "
-                                + parameters[0].getTypeName() + " is passed.");
+                    "Two or three arguments are expected.");
+        }
+
+        if (parameters.length == 3 && !"string".equals(parameters[2].getTypeName())) {
+            throw new UDFArgumentTypeException(2,
+                    "Only string type arguments are accepted as options but "
+                            + parameters[2].getTypeName() + " is passed.");
+        }
+
+        for (int i = 0; i < 2; i++) {
+            if (parameters[i].getCategory() != ObjectInspector.Category.PRIMITIVE) {
+                throw new UDFArgumentTypeException(i,
+                        "Only primitive type arguments are accepted but "
+                                + parameters[i].getTypeName() + " is passed.");
+            }
+
+            switch (((PrimitiveTypeInfo) parameters[i]).getPrimitiveCategory()) {
+                case BYTE:
+                case SHORT:
+                case INT:
+                case LONG:
+                case FLOAT:
+                case DOUBLE:
+                case TIMESTAMP:
+                case DECIMAL:
+                    break;
+                case STRING:
+                case BOOLEAN:
+                case DATE:
+                default:
+                    throw new UDFArgumentTypeException(i,
+                            "Only numeric type arguments are accepted but "
+                                    + parameters[i].getTypeName() + " is passed.");
+            }
+        }
+    }
+
+    /**
+     * The options passed as the constant third argument, empty if there is none.
+     */
+    static List<String> options(ObjectInspector[] parameters, String name) throws UDFArgumentException {
+        if (parameters.length < 3) {
+            return Collections.emptyList();
+        }
+        if (!(parameters[2] instanceof ConstantObjectInspector)) {
+            throw new UDFArgumentTypeException(2,
+                    "A constant string is expected as options by function " + name + ".");
+        }
+
+        Object options = ((ConstantObjectInspector) parameters[2]).getWritableConstantValue();
+        if (options == null) {
+            throw new UDFArgumentException("The options of " + name + " cannot be null.");
+        }
+        List<String> result = new ArrayList<String>();
+        for (String option : options.toString().split(",")) {
+            String o = option.trim().toLowerCase();
+            if (!"binary".equals(o) && !"pooled".equals(o)) {
+                throw new UDFArgumentException("Unknown option \"" + option.trim()
+                        + "\" for " + name + ", expected binary or pooled.");
+            }
+            result.add(o);
+        }
+        return result;
+    }
+
+    /**
+     * Variance of a sample of count values (count counting the new one) after adding a value,
+     * delta is the value minus the previous average and deltaAfter minus the new one.
+     */
+    static double addVariance(long count, double var, double delta, double deltaAfter) {
+        if (count > 1) {
+            return var * ((count - 2.0d) / (count - 1.0d)) + deltaAfter * delta / (count - 1.0d);
+        }
+        return var;
+    }
+
+    /**
+     * Variance of a sample of count values (count not counting the removed one) after removing
+     * a value, the inverse of addVariance.
+     */
+    static double removeVariance(long count, double var, double delta, double deltaAfter) {
+        if (count > 1) {
+            return (var * count - deltaAfter * delta) / (count - 1.0d);
+        }
+        return 0.0d;
+    }
+
+    /**
+     * Average of two merged samples of nA and nB values.
+     */
+    static double mergeAverage(long nA, double avgA, long nB, double avgB) {
+        long count = nA + nB;
+        return avgA * (nA / (double) count) + avgB * (nB / (double) count);
+    }
+
+    /**
+     * Variance of two merged samples of nA and nB values.
+     */
+    static double mergeVariance(long nA, double avgA, double varA, long nB, double avgB, double varB) {
+        long count = nA + nB;
+        return varA * ((nA - 1.0d) / (count - 1.0d))
+                + varB * ((nB - 1.0d) / (count - 1.0d))
+                + (avgA - avgB) * (avgA - avgB)
+                * (nA / (double) (nA + nB)) * (nB / (count - 1.0d));
+    }
+
+    /**
+     * Student's t-test of the two samples with their pooled variance, sets the absolute statistic
+     * and the two-sided p-value. Returns false if a sample is empty or there is no variance.
+     */
+    static boolean pooled(long xcount, double xavg, double xvar, long ycount, double yavg, double yvar,
+                          DoubleWritable statistic, DoubleWritable pvalue) {
+        double df = xcount + ycount - 2.0d;
+        if (xcount == 0 || ycount == 0 || df <= 0) {
+            return false;
+        }
+        double var = ((xcount - 1.0d) * xvar + (ycount - 1.0d) * yvar) / df;
+        if (var == 0.0d) {
+            return false;
         }
+
+        double t = Math.abs((xavg - yavg) / Math.sqrt(var * (1.0d / xcount + 1.0d / ycount)));
+        statistic.set(t);
+        pvalue.set(2 * (new TDistribution(df)).cumulativeProbability(-t));
+        return true;
+    }
+
+    /**
+     * One-sample t-test of the average of a sample against mu, sets the absolute statistic and
+     * the two-sided p-value. Returns false if the sample has no variance.
+     */
+    static boolean oneSample(long count, double avg, double var, double mu,
+                             DoubleWritable statistic, DoubleWritable pvalue) {
+        if (count < 2 || var == 0.0d) {
+            return false;
+        }
+
+        double t = Math.abs((avg - mu) / Math.sqrt(var / count));
+        statistic.set(t);
+        pvalue.set(2 * (new TDistribution(count - 1.0d)).cumulativeProbability(-t));
+        return true;
+    }
+
+    /**
+     * Size of a binary partial: two longs and four doubles.
+     */
+    static final int BINARY_PARTIAL_SIZE = 48;
+
+    static void putLong(byte[] bytes, int offset, long v) {
+        for (int i = 7; i >= 0; i--) {
+            bytes[offset + i] = (byte) v;
+            v >>>= 8;
+        }
+    }
+
+    static long getLong(byte[] bytes, int offset) {
+        long v = 0;
+        for (int i = 0; i < 8; i++) {
+            v = (v << 8) | (bytes[offset + i] & 0xFF);
+        }
+        return v;
+    }
+
+    /**
+     * Welch's t-test of the two samples, sets the absolute statistic and the two-sided p-value.
+     * Returns false (the result is null) if a sample is empty or has no variance.
+     */
+    static boolean welch(long xcount, double xavg, double xvar, long ycount, double yavg, double yvar,
+                         DoubleWritable statistic, DoubleWritable pvalue) {
+        if (xcount == 0 || ycount == 0 || xvar == 0.0d || yvar == 0.0d) {
+            return false;
+        }
+
+        double s = xvar / xcount + yvar / ycount;
+        double t = java.lang.Math.abs((xavg - yavg) / java.lang.Math.sqrt(s));
+        double df = s * s / ((xvar / xcount) * (xvar / xcount) / (xcount - 1.0d)
+                + (yvar / ycount) * (yvar / ycount) / (ycount - 1.0d));
+
+        statistic.set(t);
+        pvalue.set(2 * (new TDistribution(df)).cumulativeProbability(-t));
+        return true;
     }
 
     /**
@@ -99,10 +273,14 @@ public class TTest extends AbstractGenericUDAFResolver {
     public static class TTestGenericEvaluator extends GenericUDAFEvaluator {
 
         // For PARTIAL1 and COMPLETE
-        private PrimitiveObjectInspector xInputOI;
-        private PrimitiveObjectInspector yInputOI;
+        PrimitiveObjectInspector xInputOI;
+        PrimitiveObjectInspector yInputOI;
+
+        // For PARTIAL1 and COMPLETE, the partial is a BINARY value
+        private transient boolean binary;
 
         // For PARTIAL2 and FINAL
+        private transient BinaryObjectInspector binaryOI;  // null if the partial is a struct
         private transient StructObjectInspector soi;
         private transient StructField xcountField;
         private transient StructField ycountField;
@@ -120,6 +298,7 @@ public class TTest extends AbstractGenericUDAFResolver {
 
         // For PARTIAL1 and PARTIAL2
         private Object[] partialResult;
+        private transient BytesWritable binaryPartialResult;
 
         // For FINAL and COMPLETE
         private Object[] result;
@@ -129,12 +308,19 @@ public class TTest extends AbstractGenericUDAFResolver {
             super.init(m, parameters);
 
             // init input
+            binaryOI = null;
             if (m == Mode.PARTIAL1 || m == Mode.COMPLETE) {
-                assert (parameters.length == 2);
+                assert (parameters.length == 2 || parameters.length == 3);
                 yInputOI = (PrimitiveObjectInspector) parameters[0];
                 xInputOI = (PrimitiveObjectInspector) parameters[1];
+                binary = options(parameters, "t_test").contains("binary");
+            } else if (parameters[0] instanceof BinaryObjectInspector) {
+                assert (parameters.length == 1);
+                binaryOI = (BinaryObjectInspector) parameters[0];
+                binary = true;
             } else {
                 assert (parameters.length == 1);
+                binary = false;
                 soi = (StructObjectInspector) parameters[0];
 
                 xcountField = soi.getStructFieldRef("xcount");
@@ -153,7 +339,10 @@ public class TTest extends AbstractGenericUDAFResolver {
             }
 
             // init output
-            if (m == Mode.PARTIAL1 || m == Mode.PARTIAL2) {
+            if ((m == Mode.PARTIAL1 || m == Mode.PARTIAL2) && binary) {
+                binaryPartialResult = new BytesWritable(new byte[BINARY_PARTIAL_SIZE]);
+                return PrimitiveObjectInspectorFactory.writableBinaryObjectInspector;
+            } else if (m == Mode.PARTIAL1 || m == Mode.PARTIAL2) {
                 // The output of a partial aggregation is a struct containing
                 // a long count, two double averages, two double variances,
                 // and a double covariance.
@@ -212,6 +401,20 @@ public class TTest extends AbstractGenericUDAFResolver {
             double yvar; // variance of y elements
             @Override
             public int estimate() { return JavaDataModel.PRIMITIVES2 * 6; }
+
+            void addX(double v) {
+                xcount++;
+                double delta = v - xavg;
+                xavg += delta / xcount;
+                xvar = addVariance(xcount, xvar, delta, v - xavg);
+            }
+
+            void addY(double v) {
+                ycount++;
+                double delta = v - yavg;
+                yavg += delta / ycount;
+                yvar = addVariance(ycount, yvar, delta, v - yavg);
+            }
         }
 
         @Override
@@ -234,37 +437,34 @@ public class TTest extends AbstractGenericUDAFResolver {
 
         @Override
         public void iterate(AggregationBuffer agg, Object[] parameters) throws HiveException {
-            assert (parameters.length == 2);
+            assert (parameters.length == 2 || parameters.length == 3);
             Object py = parameters[0];
             Object px = parameters[1];
 
             StdAgg myagg = (StdAgg) agg;
             if (px != null) {
-                double v = PrimitiveObjectInspectorUtils.getDouble(px, xInputOI);
-                myagg.xcount++;
-                double delta = v - myagg.xavg;
-                myagg.xavg += delta / myagg.xcount;
-                if (myagg.xcount > 1) {
-                    myagg.xvar = myagg.xvar * ((myagg.xcount - 2.0d) / (myagg.xcount - 1.0d))
-                            + (v - myagg.xavg) * delta / (myagg.xcount - 1.0d);
-                }
+                myagg.addX(PrimitiveObjectInspectorUtils.getDouble(px, xInputOI));
             }
 
             if (py != null) {
-                double v = PrimitiveObjectInspectorUtils.getDouble(py, yInputOI);
-                myagg.ycount++;
-                double delta = v - myagg.yavg;
-                myagg.yavg += delta / myagg.ycount;
-                if (myagg.ycount > 1) {
-                    myagg.yvar = myagg.yvar * ((myagg.ycount - 2.0d) / (myagg.ycount - 1.0d))
-                            + (v - myagg.yavg) * delta / (myagg.ycount - 1.0d);
-                }
+                myagg.addY(PrimitiveObjectInspectorUtils.getDouble(py, yInputOI));
             }
         }
 
         @Override
         public Object terminatePartial(AggregationBuffer agg) throws HiveException {
             StdAgg myagg = (StdAgg) agg;
+            if (binary) {
+                byte[] bytes = binaryPartialResult.getBytes();
+                putLong(bytes, 0, myagg.xcount);
+                putLong(bytes, 8, myagg.ycount);
+                putLong(bytes, 16, Double.doubleToRawLongBits(myagg.xavg));
+                putLong(bytes, 24, Double.doubleToRawLongBits(myagg.yavg));
+                putLong(bytes, 32, Double.doubleToRawLongBits(myagg.xvar));
+                putLong(bytes, 40, Double.doubleToRawLongBits(myagg.yvar));
+                return binaryPartialResult;
+            }
+
             ((LongWritable) partialResult[0]).set(myagg.xcount);
             ((LongWritable) partialResult[1]).set(myagg.ycount);
             ((DoubleWritable) partialResult[2]).set(myagg.xavg);
@@ -276,7 +476,45 @@ public class TTest extends AbstractGenericUDAFResolver {
 
         @Override
         public void merge(AggregationBuffer agg, Object partial) throws HiveException {
-            if (partial != null) {
+            if (partial != null && binaryOI != null) {
+                BytesWritable writable = binaryOI.getPrimitiveWritableObject(partial);
+                if (writable.getLength() != BINARY_PARTIAL_SIZE) {
+                    throw new HiveException("A binary partial of t_test must have " + BINARY_PARTIAL_SIZE
+                            + " bytes but " + writable.getLength() + " are passed.");
+                }
+                byte[] bytes = writable.getBytes();
+                StdAgg myagg = (StdAgg) agg;
+
+                long nB = getLong(bytes, 0);
+                if (myagg.xcount == 0) {
+                    myagg.xcount = nB;
+                    myagg.xavg = Double.longBitsToDouble(getLong(bytes, 16));
+                    myagg.xvar = Double.longBitsToDouble(getLong(bytes, 32));
+                } else if (nB != 0) {
+                    long nA = myagg.xcount;
+                    double xavgA = myagg.xavg;
+                    double xavgB = Double.longBitsToDouble(getLong(bytes, 16));
+                    myagg.xcount += nB;
+                    myagg.xavg = mergeAverage(nA, xavgA, nB, xavgB);
+                    myagg.xvar = mergeVariance(nA, xavgA, myagg.xvar, nB, xavgB,
+                            Double.longBitsToDouble(getLong(bytes, 32)));
+                }
+
+                nB = getLong(bytes, 8);
+                if (myagg.ycount == 0) {
+                    myagg.ycount = nB;
+                    myagg.yavg = Double.longBitsToDouble(getLong(bytes, 24));
+                    myagg.yvar = Double.longBitsToDouble(getLong(bytes, 40));
+                } else if (nB != 0) {
+                    long nA = myagg.ycount;
+                    double yavgA = myagg.yavg;
+                    double yavgB = Double.longBitsToDouble(getLong(bytes, 24));
+                    myagg.ycount += nB;
+                    myagg.yavg = mergeAverage(nA, yavgA, nB, yavgB);
+                    myagg.yvar = mergeVariance(nA, yavgA, myagg.yvar, nB, yavgB,
+                            Double.longBitsToDouble(getLong(bytes, 40)));
+                }
+            } else if (partial != null) {
                 StdAgg myagg = (StdAgg) agg;
 
                 Object partialXCount = soi.getStructFieldData(partial, xcountField);
@@ -304,12 +542,8 @@ public class TTest extends AbstractGenericUDAFResolver {
                     double xvarB = xvarFieldOI.get(partialXVar);
 
                     myagg.xcount += nB;
-                    myagg.xavg = xavgA * (nA / (double) myagg.xcount)
-                            + xavgB * (nB / (double) myagg.xcount);
-                    myagg.xvar = xvarA * ((nA - 1.0d) / (myagg.xcount - 1.0d))
-                            + xvarB * ((nB - 1.0d) / (myagg.xcount - 1.0d))
-                            + (xavgA - xavgB) * (xavgA - xavgB)
-                            * (nA / (double) (nA + nB)) * (nB / (myagg.xcount - 1.0d));
+                    myagg.xavg = mergeAverage(nA, xavgA, nB, xavgB);
+                    myagg.xvar = mergeVariance(nA, xavgA, xvarA, nB, xavgB, xvarB);
                 }
 
                 nA = myagg.ycount;
@@ -330,12 +564,8 @@ public class TTest extends AbstractGenericUDAFResolver {
                     double yvarB = yvarFieldOI.get(partialYVar);
 
                     myagg.ycount += nB;
-                    myagg.yavg = yavgA * (nA / (double) myagg.ycount)
-                            + yavgB * (nB / (double) myagg.ycount);
-                    myagg.yvar = yvarA * ((nA - 1.0d) / (myagg.ycount - 1.0d))
-                            + yvarB * ((nB - 1.0d) / (myagg.ycount - 1.0d))
-                            + (yavgA - yavgB) * (yavgA - yavgB)
-                            * (nA / (double) (nA + nB)) * (nB  / (myagg.ycount - 1.0d));
+                    myagg.yavg = mergeAverage(nA, yavgA, nB, yavgB);
+                    myagg.yvar = mergeVariance(nA, yavgA, yvarA, nB, yavgB, yvarB);
                 }
             }
         }
@@ -344,21 +574,19 @@ public class TTest extends AbstractGenericUDAFResolver {
         public Object terminate(AggregationBuffer agg) throws HiveException {
             StdAgg myagg = (StdAgg) agg;
 
-            if (myagg.xcount == 0 || myagg.ycount == 0 || myagg.xvar == 0.0d || myagg.yvar == 0.0d) {
+            if (!test(myagg.xcount, myagg.xavg, myagg.xvar, myagg.ycount, myagg.yavg, myagg.yvar,
+                    (DoubleWritable) result[0], (DoubleWritable) result[1])) {
                 return null;
-            } else {
-                double s = myagg.xvar / myagg.xcount + myagg.yvar / myagg.ycount;
-                double t = java.lang.Math.abs((myagg.xavg - myagg.yavg) / java.lang.Math.sqrt(s));
-                double df = s * s / ((myagg.xvar / myagg.xcount)
-                        * (myagg.xvar / myagg.xcount) / (myagg.xcount - 1.0d)
-                        + (myagg.yvar / myagg.ycount) * (myagg.yvar / myagg.ycount) / (myagg.ycount - 1.0d));
-
-                result = new Object[2];
-                result[0] = new DoubleWritable(t);
-                result[1] = new DoubleWritable(2 * (new TDistribution(df)).cumulativeProbability(-t));
-
-                return result;
             }
+            return result;
+        }
+
+        /**
+         * Test the two samples, returns false if the result is null.
+         */
+        boolean test(long xcount, double xavg, double xvar, long ycount, double yavg, double yvar,
+                     DoubleWritable statistic, DoubleWritable pvalue) {
+            return welch(xcount, xavg, xvar, ycount, yavg, yvar, statistic, pvalue);
         }
 
         public void setResult(Object[] result) {
@@ -368,5 +596,302 @@ public class TTest extends AbstractGenericUDAFResolver {
         public Object[] getResult() {
             return result;
         }
+
+        /**
+         * Stream sliding ROWS frames whose end is the current row or a following one, the
+         * frames of other windows are recomputed by Hive.
+         */
+        @Override
+        public GenericUDAFEvaluator getWindowingEvaluator(WindowFrameDef wFrmDef) {
+            BoundaryDef start = wFrmDef.getStart();
+            BoundaryDef end = wFrmDef.getEnd();
+            if (wFrmDef.getWindowType() != WindowType.ROWS || end.isUnbounded() || end.getRelativeOffset() < 0
+                    || (!start.isUnbounded() && start.getRelativeOffset() > end.getRelativeOffset())) {
+                return null;
+            }
+            return new TTestStreamingEvaluator(this, wFrmDef);
+        }
+    }
+
+    /**
+     * Student's t-test with the pooled variance, t_test(y, x, 'pooled').
+     */
+    public static class TTestPooledEvaluator extends TTestGenericEvaluator {
+        @Override
+        boolean test(long xcount, double xavg, double xvar, long ycount, double yavg, double yvar,
+                     DoubleWritable statistic, DoubleWritable pvalue) {
+            return pooled(xcount, xavg, xvar, ycount, yavg, yvar, statistic, pvalue);
+        }
+    }
+
+    /**
+     * t_test over a sliding ROWS frame in O(1) per row instead of O(frame): the values of the rows
+     * still in the frame are buffered, each new row is added with the update of iterate and the
+     * rows leaving the frame are removed with its inverse. The samples are recomputed from the
+     * buffer once per frame width of removals (amortized O(1)) and when a removal cancels most
+     * of the variance (e.g. the frame becomes constant), which bounds the rounding drift: the
+     * results agree with those of TTestGenericEvaluator over the same frame to about 1e-6
+     * relative while the values lie within ~1e6 standard deviations of their mean. Each removal
+     * adds an error of about ulp(mean) * |x - mean| to the sum of squares, so the bound grows
+     * with |mean| / stddev and is reset by every recompute.
+     */
+    public static class TTestStreamingEvaluator extends GenericUDAFEvaluator
+            implements ISupportStreamingModeForWindowing {
+        private final TTestGenericEvaluator wrappedEval;
+        private final boolean unboundedPreceding;
+        private final int startOffset;  // relative to the current row, if bounded
+        private final int endOffset;
+
+        public TTestStreamingEvaluator(TTestGenericEvaluator wrappedEval, WindowFrameDef wFrmDef) {
+            this.wrappedEval = wrappedEval;
+            this.unboundedPreceding = wFrmDef.getStart().isUnbounded();
+            this.startOffset = unboundedPreceding ? 0 : wFrmDef.getStart().getRelativeOffset();
+            this.endOffset = wFrmDef.getEnd().getRelativeOffset();
+        }
+
+        @Override
+        public ObjectInspector init(Mode m, ObjectInspector[] parameters) throws HiveException {
+            if (m != Mode.COMPLETE) {
+                throw new HiveException(getClass().getSimpleName() + ": only COMPLETE mode is supported");
+            }
+            super.init(m, parameters);
+            return wrappedEval.init(m, parameters);
+        }
+
+        /**
+         * Count, average and variance of one sample with removals.
+         */
+        static final class Moments {
+            long count;
+            double avg;
+            double var;
+            double peak;  // largest sum of squared deviations since the reset
+
+            void reset() {
+                count = 0;
+                avg = 0;
+                var = 0;
+                peak = 0;
+            }
+
+            void add(double v) {
+                count++;
+                double delta = v - avg;
+                avg += delta / count;
+                var = addVariance(count, var, delta, v - avg);
+                peak = Math.max(peak, var * (count - 1));
+            }
+
+            /**
+             * Remove a value added before, returns false if the variance lost most of its digits
+             * since the reset.
+             */
+            boolean remove(double v) {
+                if (count == 1) {
+                    reset();
+                    return true;
+                }
+                count--;
+                double delta = v - avg;
+                avg -= delta / count;
+                var = removeVariance(count, var, delta, v - avg);
+                if (var < 0) {
+                    var = 0;
+                }
+                return count == 1 || var * (count - 1) >= 1E-3 * peak;
+            }
+        }
+
+        static class StreamingAgg extends AbstractAggregationBuffer {
+            final Moments x = new Moments();
+            final Moments y = new Moments();
+
+            // Values of the rows [first, rows) in a ring buffer, if the frame has a start
+            double[] xs = new double[16];
+            double[] ys = new double[16];
+            boolean[] xNulls = new boolean[16];
+            boolean[] yNulls = new boolean[16];
+            long first;
+            long rows;  // number of rows iterated
+            long removed;  // rows removed since the samples were recomputed
+
+            final ArrayDeque<Object[]> results = new ArrayDeque<Object[]>();
+            final Object[] none = new Object[0];  // placeholder of a null result in results
+
+            void buffer(Object px, double x, Object py, double y) {
+                if (rows - first == xs.length) {
+                    grow();
+                }
+                int i = (int) (rows & (xs.length - 1));
+                xNulls[i] = px == null;
+                xs[i] = x;
+                yNulls[i] = py == null;
+                ys[i] = y;
+            }
+
+            private void grow() {
+                int n = xs.length;
+                double[] nxs = new double[2 * n];
+                double[] nys = new double[2 * n];
+                boolean[] nxNulls = new boolean[2 * n];
+                boolean[] nyNulls = new boolean[2 * n];
+                for (long r = first; r < rows; r++) {
+                    int i = (int) (r & (n - 1));
+                    int j = (int) (r & (2 * n - 1));
+                    nxs[j] = xs[i];
+                    nys[j] = ys[i];
+                    nxNulls[j] = xNulls[i];
+                    nyNulls[j] = yNulls[i];
+                }
+                xs = nxs;
+                ys = nys;
+                xNulls = nxNulls;
+                yNulls = nyNulls;
+            }
+
+            /**
+             * Remove the rows before the given one from the samples.
+             */
+            void removeBefore(long row, long width) {
+                boolean xExact = true;
+                boolean yExact = true;
+                for (; first < row && first < rows; first++) {
+                    int i = (int) (first & (xs.length - 1));
+                    if (!xNulls[i]) {
+                        xExact &= x.remove(xs[i]);
+                    }
+                    if (!yNulls[i]) {
+                        yExact &= y.remove(ys[i]);
+                    }
+                    removed++;
+                }
+                first = Math.max(first, row);
+
+                boolean periodic = removed >= width;
+                if (periodic) {
+                    removed = 0;
+                }
+                if (!xExact || periodic) {
+                    recompute(x, xs, xNulls);
+                }
+                if (!yExact || periodic) {
+                    recompute(y, ys, yNulls);
+                }
+            }
+
+            private void recompute(Moments moments, double[] values, boolean[] nulls) {
+                moments.reset();
+                for (long r = first; r < rows; r++) {
+                    int i = (int) (r & (values.length - 1));
+                    if (!nulls[i]) {
+                        moments.add(values[i]);
+                    }
+                }
+            }
+
+            @Override
+            public int estimate() {
+                JavaDataModel model = JavaDataModel.get();
+                return model.object() + 2 * (model.object() + JavaDataModel.PRIMITIVES2 * 4)
+                        + 2 * model.lengthForDoubleArrayOfSize(xs.length)
+                        + 2 * model.lengthForBooleanArrayOfSize(xs.length)
+                        + JavaDataModel.PRIMITIVES2 * 3 + model.lengthForLinkedListOfSize(results.size());
+            }
+        }
+
+        @Override
+        public AggregationBuffer getNewAggregationBuffer() throws HiveException {
+            return new StreamingAgg();
+        }
+
+        @Override
+        public void reset(AggregationBuffer agg) throws HiveException {
+            StreamingAgg myagg = (StreamingAgg) agg;
+            myagg.x.reset();
+            myagg.y.reset();
+            myagg.first = 0;
+            myagg.rows = 0;
+            myagg.removed = 0;
+            myagg.results.clear();
+        }
+
+        @Override
+        public void iterate(AggregationBuffer agg, Object[] parameters) throws HiveException {
+            assert (parameters.length == 2 || parameters.length == 3);
+            Object py = parameters[0];
+            Object px = parameters[1];
+
+            StreamingAgg myagg = (StreamingAgg) agg;
+            double x = px == null ? 0 : PrimitiveObjectInspectorUtils.getDouble(px, wrappedEval.xInputOI);
+            double y = py == null ? 0 : PrimitiveObjectInspectorUtils.getDouble(py, wrappedEval.yInputOI);
+            if (px != null) {
+                myagg.x.add(x);
+            }
+            if (py != null) {
+                myagg.y.add(y);
+            }
+            if (!unboundedPreceding) {
+                myagg.buffer(px, x, py, y);
+            }
+            myagg.rows++;
+
+            // The frame of the row endOffset rows before is complete
+            long row = myagg.rows - 1 - endOffset;
+            if (row >= 0) {
+                addResult(myagg, row);
+            }
+        }
+
+        private void addResult(StreamingAgg myagg, long row) {
+            if (!unboundedPreceding) {
+                myagg.removeBefore(row + startOffset, endOffset - startOffset + 1);
+            }
+
+            DoubleWritable statistic = new DoubleWritable();
+            DoubleWritable pvalue = new DoubleWritable();
+            if (wrappedEval.test(myagg.x.count, myagg.x.avg, myagg.x.var, myagg.y.count, myagg.y.avg, myagg.y.var,
+                    statistic, pvalue)) {
+                myagg.results.add(new Object[]{statistic, pvalue});
+            } else {
+                myagg.results.add(myagg.none);
+            }
+        }
+
+        @Override
+        public Object terminatePartial(AggregationBuffer agg) throws HiveException {
+            throw new HiveException(getClass().getSimpleName() + ": terminatePartial not supported");
+        }
+
+        @Override
+        public void merge(AggregationBuffer agg, Object partial) throws HiveException {
+            throw new HiveException(getClass().getSimpleName() + ": merge not supported");
+        }
+
+        /**
+         * Complete the frames of the last endOffset rows, their results are returned by the
+         * next calls of getNextResult.
+         */
+        @Override
+        public Object terminate(AggregationBuffer agg) throws HiveException {
+            StreamingAgg myagg = (StreamingAgg) agg;
+            for (long row = Math.max(0, myagg.rows - endOffset); row < myagg.rows; row++) {
+                addResult(myagg, row);
+            }
+            return null;
+        }
+
+        @Override
+        public Object getNextResult(AggregationBuffer agg) throws HiveException {
+            Object[] result = ((StreamingAgg) agg).results.poll();
+            if (result == null) {
+                return null;
+            }
+            return result.length == 0 ? ISupportStreamingModeForWindowing.NULL_RESULT : result;
+        }
+
+        @Override
+        public int getRowsRemainingAfterTerminate() throws HiveException {
+            return endOffset;
+        }
     }
 }
\ No newline at end of file
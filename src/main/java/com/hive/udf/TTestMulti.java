@@ -0,0 +1,337 @@
+package com.hive.udf;
+
+import org.apache.hadoop.hive.ql.exec.Description;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.parse.SemanticException;
+import org.apache.hadoop.hive.ql.udf.generic.AbstractGenericUDAFResolver;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDAFEvaluator;
+import org.apache.hadoop.hive.ql.util.JavaDataModel;
+import org.apache.hadoop.hive.serde2.io.DoubleWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.ListObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.StructField;
+import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.DoubleObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.LongObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.typeinfo.ListTypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoUtils;
+import org.apache.hadoop.io.LongWritable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ * t_test over many metrics in one aggregation: element i of y_metrics and x_metrics is the i-th
+ * metric of the two samples. The buffer keeps counts, averages and variances of every metric in
+ * primitive arrays (structure of arrays) updated with the formulas of TTest, and the partial is
+ * one struct of six arrays per group instead of one six-field struct per metric.
+ * Null elements are skipped like null arguments of t_test. Arrays of different lengths are
+ * allowed, missing elements count as nulls.
+ */
+@Description(name = "t_test_multi",
+        value = "_FUNC_(y_metrics, x_metrics) - Run a t-test between y and x for every metric of two numeric arrays",
+        extended = "Returns an array of struct<statistic, pvalue>, null for a metric without enough values.\n"
+                + "Example:\n > select _FUNC_(array(clicks, spend), array(base_clicks, base_spend)) from src;")
+public class TTestMulti extends AbstractGenericUDAFResolver {
+
+    @Override
+    public GenericUDAFEvaluator getEvaluator(TypeInfo[] parameters) throws SemanticException {
+        if (parameters.length != 2) {
+            throw new UDFArgumentTypeException(parameters.length - 1,
+                    "Exactly two arguments are expected.");
+        }
+
+        for (int i = 0; i < 2; i++) {
+            if (parameters[i].getCategory() != ObjectInspector.Category.LIST) {
+                throw new UDFArgumentTypeException(i,
+                        "Only array type arguments are accepted but "
+                                + parameters[i].getTypeName() + " is passed.");
+            }
+
+            TypeInfo elementType = ((ListTypeInfo) parameters[i]).getListElementTypeInfo();
+            if (elementType.getCategory() != ObjectInspector.Category.PRIMITIVE
+                    || !NumericReader.isNumeric(TypeInfoUtils.getStandardJavaObjectInspectorFromTypeInfo(elementType))) {
+                throw new UDFArgumentTypeException(i,
+                        "Only numeric type arguments are accepted but "
+                                + parameters[i].getTypeName() + " is passed.");
+            }
+        }
+
+        return new Evaluator();
+    }
+
+    public static class Evaluator extends GenericUDAFEvaluator {
+        private static final String[] FIELDS = {"xcount", "ycount", "xavg", "yavg", "xvar", "yvar"};
+
+        // For PARTIAL1 and COMPLETE
+        private transient ListObjectInspector yInputOI;
+        private transient ListObjectInspector xInputOI;
+        private transient NumericReader yReader;
+        private transient NumericReader xReader;
+
+        // For PARTIAL2 and FINAL
+        private transient StructObjectInspector soi;
+        private transient StructField[] fields;
+        private transient ListObjectInspector[] fieldOIs;
+
+        // For PARTIAL1 and PARTIAL2, six lists of writables reused across groups
+        private transient List<Object> partialResult;
+
+        // For FINAL and COMPLETE
+        private transient ArrayList<Object> result;
+        private transient ArrayList<Object[]> results;  // reused structs of result
+
+        @Override
+        public ObjectInspector init(Mode m, ObjectInspector[] parameters) throws HiveException {
+            super.init(m, parameters);
+
+            // init input
+            if (m == Mode.PARTIAL1 || m == Mode.COMPLETE) {
+                assert (parameters.length == 2);
+                yInputOI = (ListObjectInspector) parameters[0];
+                xInputOI = (ListObjectInspector) parameters[1];
+                yReader = NumericReader.of(yInputOI.getListElementObjectInspector(), 0);
+                xReader = NumericReader.of(xInputOI.getListElementObjectInspector(), 1);
+            } else {
+                assert (parameters.length == 1);
+                soi = (StructObjectInspector) parameters[0];
+                fields = new StructField[FIELDS.length];
+                fieldOIs = new ListObjectInspector[FIELDS.length];
+                for (int i = 0; i < FIELDS.length; i++) {
+                    fields[i] = soi.getStructFieldRef(FIELDS[i]);
+                    fieldOIs[i] = (ListObjectInspector) fields[i].getFieldObjectInspector();
+                }
+            }
+
+            // init output
+            if (m == Mode.PARTIAL1 || m == Mode.PARTIAL2) {
+                // The partial is a struct of two arrays of counts, two of averages and two of variances
+                List<ObjectInspector> foi = new ArrayList<ObjectInspector>();
+                partialResult = new ArrayList<Object>();
+                for (int i = 0; i < FIELDS.length; i++) {
+                    foi.add(ObjectInspectorFactory.getStandardListObjectInspector(i < 2
+                            ? PrimitiveObjectInspectorFactory.writableLongObjectInspector
+                            : PrimitiveObjectInspectorFactory.writableDoubleObjectInspector));
+                    partialResult.add(new ArrayList<Object>());
+                }
+                return ObjectInspectorFactory.getStandardStructObjectInspector(Arrays.asList(FIELDS), foi);
+            } else {
+                result = new ArrayList<Object>();
+                results = new ArrayList<Object[]>();
+                return ObjectInspectorFactory.getStandardListObjectInspector(
+                        ObjectInspectorFactory.getStandardStructObjectInspector(
+                                Arrays.asList("statistic", "pvalue"),
+                                Arrays.<ObjectInspector>asList(
+                                        PrimitiveObjectInspectorFactory.writableDoubleObjectInspector,
+                                        PrimitiveObjectInspectorFactory.writableDoubleObjectInspector)));
+            }
+        }
+
+        /**
+         * Counts, averages and variances of every metric, in [0, size) of the arrays.
+         */
+        @AggregationType(estimable = true)
+        static class MultiAgg extends AbstractAggregationBuffer {
+            int size;  // number of metrics
+            long[] xcount = new long[0];
+            long[] ycount = new long[0];
+            double[] xavg = new double[0];
+            double[] yavg = new double[0];
+            double[] xvar = new double[0];
+            double[] yvar = new double[0];
+
+            void ensureSize(int metrics) {
+                if (metrics <= size) {
+                    return;
+                }
+                if (metrics > xcount.length) {
+                    int capacity = Math.max(metrics, 2 * xcount.length);
+                    xcount = Arrays.copyOf(xcount, capacity);
+                    ycount = Arrays.copyOf(ycount, capacity);
+                    xavg = Arrays.copyOf(xavg, capacity);
+                    yavg = Arrays.copyOf(yavg, capacity);
+                    xvar = Arrays.copyOf(xvar, capacity);
+                    yvar = Arrays.copyOf(yvar, capacity);
+                }
+                size = metrics;
+            }
+
+            @Override
+            public int estimate() {
+                JavaDataModel model = JavaDataModel.get();
+                return model.object() + model.primitive1()
+                        + 2 * model.lengthForLongArrayOfSize(xcount.length)
+                        + 4 * model.lengthForDoubleArrayOfSize(xcount.length);
+            }
+        }
+
+        @Override
+        public AggregationBuffer getNewAggregationBuffer() throws HiveException {
+            MultiAgg result = new MultiAgg();
+            reset(result);
+            return result;
+        }
+
+        @Override
+        public void reset(AggregationBuffer agg) throws HiveException {
+            MultiAgg myagg = (MultiAgg) agg;
+            Arrays.fill(myagg.xcount, 0, myagg.size, 0);
+            Arrays.fill(myagg.ycount, 0, myagg.size, 0);
+            Arrays.fill(myagg.xavg, 0, myagg.size, 0);
+            Arrays.fill(myagg.yavg, 0, myagg.size, 0);
+            Arrays.fill(myagg.xvar, 0, myagg.size, 0);
+            Arrays.fill(myagg.yvar, 0, myagg.size, 0);
+            myagg.size = 0;
+        }
+
+        @Override
+        public void iterate(AggregationBuffer agg, Object[] parameters) throws HiveException {
+            assert (parameters.length == 2);
+            MultiAgg myagg = (MultiAgg) agg;
+            Object py = parameters[0];
+            Object px = parameters[1];
+
+            if (px != null) {
+                int length = xInputOI.getListLength(px);
+                myagg.ensureSize(length);
+                for (int i = 0; i < length; i++) {
+                    Object v = xInputOI.getListElement(px, i);
+                    if (v != null) {
+                        double t = xReader.getDouble(v);
+                        long count = ++myagg.xcount[i];
+                        double delta = t - myagg.xavg[i];
+                        myagg.xavg[i] += delta / count;
+                        myagg.xvar[i] = TTest.addVariance(count, myagg.xvar[i], delta, t - myagg.xavg[i]);
+                    }
+                }
+            }
+
+            if (py != null) {
+                int length = yInputOI.getListLength(py);
+                myagg.ensureSize(length);
+                for (int i = 0; i < length; i++) {
+                    Object v = yInputOI.getListElement(py, i);
+                    if (v != null) {
+                        double t = yReader.getDouble(v);
+                        long count = ++myagg.ycount[i];
+                        double delta = t - myagg.yavg[i];
+                        myagg.yavg[i] += delta / count;
+                        myagg.yvar[i] = TTest.addVariance(count, myagg.yvar[i], delta, t - myagg.yavg[i]);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public Object terminatePartial(AggregationBuffer agg) throws HiveException {
+            MultiAgg myagg = (MultiAgg) agg;
+            setLongs(0, myagg.xcount, myagg.size);
+            setLongs(1, myagg.ycount, myagg.size);
+            setDoubles(2, myagg.xavg, myagg.size);
+            setDoubles(3, myagg.yavg, myagg.size);
+            setDoubles(4, myagg.xvar, myagg.size);
+            setDoubles(5, myagg.yvar, myagg.size);
+            return partialResult;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void setLongs(int field, long[] values, int size) {
+            List<Object> list = (List<Object>) partialResult.get(field);
+            for (int i = list.size(); i < size; i++) {
+                list.add(new LongWritable());
+            }
+            list.subList(size, list.size()).clear();
+            for (int i = 0; i < size; i++) {
+                ((LongWritable) list.get(i)).set(values[i]);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void setDoubles(int field, double[] values, int size) {
+            List<Object> list = (List<Object>) partialResult.get(field);
+            for (int i = list.size(); i < size; i++) {
+                list.add(new DoubleWritable());
+            }
+            list.subList(size, list.size()).clear();
+            for (int i = 0; i < size; i++) {
+                ((DoubleWritable) list.get(i)).set(values[i]);
+            }
+        }
+
+        @Override
+        public void merge(AggregationBuffer agg, Object partial) throws HiveException {
+            if (partial == null) {
+                return;
+            }
+
+            MultiAgg myagg = (MultiAgg) agg;
+            Object[] lists = new Object[FIELDS.length];
+            for (int f = 0; f < FIELDS.length; f++) {
+                lists[f] = soi.getStructFieldData(partial, fields[f]);
+            }
+            int size = fieldOIs[0].getListLength(lists[0]);
+            myagg.ensureSize(size);
+
+            LongObjectInspector countOI = (LongObjectInspector) fieldOIs[0].getListElementObjectInspector();
+            DoubleObjectInspector doubleOI = (DoubleObjectInspector) fieldOIs[2].getListElementObjectInspector();
+            for (int i = 0; i < size; i++) {
+                long nB = countOI.get(fieldOIs[0].getListElement(lists[0], i));
+                if (nB != 0) {
+                    double avgB = doubleOI.get(fieldOIs[2].getListElement(lists[2], i));
+                    double varB = doubleOI.get(fieldOIs[4].getListElement(lists[4], i));
+                    long nA = myagg.xcount[i];
+                    if (nA == 0) {
+                        // Just copy the information since there is nothing so far
+                        myagg.xavg[i] = avgB;
+                        myagg.xvar[i] = varB;
+                    } else {
+                        double avgA = myagg.xavg[i];
+                        myagg.xavg[i] = TTest.mergeAverage(nA, avgA, nB, avgB);
+                        myagg.xvar[i] = TTest.mergeVariance(nA, avgA, myagg.xvar[i], nB, avgB, varB);
+                    }
+                    myagg.xcount[i] = nA + nB;
+                }
+
+                nB = countOI.get(fieldOIs[1].getListElement(lists[1], i));
+                if (nB != 0) {
+                    double avgB = doubleOI.get(fieldOIs[3].getListElement(lists[3], i));
+                    double varB = doubleOI.get(fieldOIs[5].getListElement(lists[5], i));
+                    long nA = myagg.ycount[i];
+                    if (nA == 0) {
+                        myagg.yavg[i] = avgB;
+                        myagg.yvar[i] = varB;
+                    } else {
+                        double avgA = myagg.yavg[i];
+                        myagg.yavg[i] = TTest.mergeAverage(nA, avgA, nB, avgB);
+                        myagg.yvar[i] = TTest.mergeVariance(nA, avgA, myagg.yvar[i], nB, avgB, varB);
+                    }
+                    myagg.ycount[i] = nA + nB;
+                }
+            }
+        }
+
+        @Override
+        public Object terminate(AggregationBuffer agg) throws HiveException {
+            MultiAgg myagg = (MultiAgg) agg;
+
+            result.clear();
+            for (int i = 0; i < myagg.size; i++) {
+                if (results.size() <= i) {
+                    results.add(new Object[]{new DoubleWritable(0), new DoubleWritable(0)});
+                }
+                Object[] r = results.get(i);
+                boolean defined = TTest.welch(myagg.xcount[i], myagg.xavg[i], myagg.xvar[i],
+                        myagg.ycount[i], myagg.yavg[i], myagg.yvar[i],
+                        (DoubleWritable) r[0], (DoubleWritable) r[1]);
+                result.add(defined ? r : null);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.hive.udf;
+
+import org.apache.hadoop.hive.ql.exec.Description;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.parse.SemanticException;
+import org.apache.hadoop.hive.ql.plan.ptf.WindowFrameDef;
+import org.apache.hadoop.hive.ql.udf.generic.AbstractGenericUDAFResolver;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDAFEvaluator;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDAFParameterInfo;
+import org.apache.hadoop.hive.serde2.io.DoubleWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorUtils;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
+
+
+/**
+ * One-sample t-test of the average of x against mu in one scan. x is accumulated as the x sample
+ * of TTest's buffer and mu as its y sample (same incremental update, merge and partial, 'binary'
+ * included), so mu reaches the final aggregation through the partials. mu is usually a constant,
+ * otherwise x is tested against the average of mu.
+ */
+@Description(name = "t_test_one_sample", value = "_FUNC_(x, mu [, options]) - Run a one-sample t-test of x against mu",
+        extended = "Rows where x or mu is null are skipped, options 'binary' shuffles 48-byte binary partials.\n"
+                + "Example:\n > select _FUNC_(conversion_rate, 0.05) from src;")
+public class TTestOneSample extends AbstractGenericUDAFResolver {
+
+    @Override
+    public GenericUDAFEvaluator getEvaluator(GenericUDAFParameterInfo info) throws SemanticException {
+        GenericUDAFEvaluator evaluator = getEvaluator(info.getParameters());
+        if (TTest.options(info.getParameterObjectInspectors(), "t_test_one_sample").contains("pooled")) {
+            throw new UDFArgumentException("The option pooled is not supported by t_test_one_sample.");
+        }
+        return evaluator;
+    }
+
+    @Override
+    public GenericUDAFEvaluator getEvaluator(TypeInfo[] parameters) throws SemanticException {
+        TTest.checkParameters(parameters);
+        return new Evaluator();
+    }
+
+    public static class Evaluator extends TTest.TTestGenericEvaluator {
+        @Override
+        public void iterate(AggregationBuffer agg, Object[] parameters) throws HiveException {
+            Object px = parameters[0];
+            Object pmu = parameters[1];
+            if (px != null && pmu != null) {
+                // init keeps the first argument in yInputOI and the second one in xInputOI
+                StdAgg myagg = (StdAgg) agg;
+                myagg.addX(PrimitiveObjectInspectorUtils.getDouble(px, yInputOI));
+                myagg.addY(PrimitiveObjectInspectorUtils.getDouble(pmu, xInputOI));
+            }
+        }
+
+        @Override
+        boolean test(long xcount, double xavg, double xvar, long ycount, double yavg, double yvar,
+                     DoubleWritable statistic, DoubleWritable pvalue) {
+            return ycount != 0 && TTest.oneSample(xcount, xavg, xvar, yavg, statistic, pvalue);
+        }
+
+        @Override
+        public GenericUDAFEvaluator getWindowingEvaluator(WindowFrameDef wFrmDef) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.hive.udf;
+
+import org.apache.hadoop.hive.ql.exec.Description;
+import org.apache.hadoop.hive.ql.exec.UDFArgumentException;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.parse.SemanticException;
+import org.apache.hadoop.hive.ql.plan.ptf.WindowFrameDef;
+import org.apache.hadoop.hive.ql.udf.generic.AbstractGenericUDAFResolver;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDAFEvaluator;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDAFParameterInfo;
+import org.apache.hadoop.hive.serde2.io.DoubleWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorUtils;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
+
+
+/**
+ * Paired t-test of y and x in one scan: the differences y - x of the rows where both are not
+ * null are accumulated as the x sample of TTest's buffer (same incremental update, merge and
+ * partial, 'binary' included) and tested against 0 with a one-sample t-test.
+ */
+@Description(name = "t_test_paired", value = "_FUNC_(y, x [, options]) - Run a paired t-test between y and x",
+        extended = "Rows where y or x is null are skipped, options 'binary' shuffles 48-byte binary partials.\n"
+                + "Example:\n > select _FUNC_(post_spend, pre_spend) from src;")
+public class TTestPaired extends AbstractGenericUDAFResolver {
+
+    @Override
+    public GenericUDAFEvaluator getEvaluator(GenericUDAFParameterInfo info) throws SemanticException {
+        GenericUDAFEvaluator evaluator = getEvaluator(info.getParameters());
+        if (TTest.options(info.getParameterObjectInspectors(), "t_test_paired").contains("pooled")) {
+            throw new UDFArgumentException("The option pooled is not supported by t_test_paired.");
+        }
+        return evaluator;
+    }
+
+    @Override
+    public GenericUDAFEvaluator getEvaluator(TypeInfo[] parameters) throws SemanticException {
+        TTest.checkParameters(parameters);
+        return new Evaluator();
+    }
+
+    public static class Evaluator extends TTest.TTestGenericEvaluator {
+        @Override
+        public void iterate(AggregationBuffer agg, Object[] parameters) throws HiveException {
+            Object py = parameters[0];
+            Object px = parameters[1];
+            if (py != null && px != null) {
+                ((StdAgg) agg).addX(PrimitiveObjectInspectorUtils.getDouble(py, yInputOI)
+                        - PrimitiveObjectInspectorUtils.getDouble(px, xInputOI));
+            }
+        }
+
+        @Override
+        boolean test(long xcount, double xavg, double xvar, long ycount, double yavg, double yvar,
+                     DoubleWritable statistic, DoubleWritable pvalue) {
+            return TTest.oneSample(xcount, xavg, xvar, 0.0d, statistic, pvalue);
+        }
+
+        @Override
+        public GenericUDAFEvaluator getWindowingEvaluator(WindowFrameDef wFrmDef) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.hive.udf;
+
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredJavaObject;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredObject;
+import org.apache.hadoop.hive.serde2.io.DoubleWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+import org.apache.hadoop.io.FloatWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that evaluate() reuses its output objects, i.e. the bytes allocated per row
+ * (measured by the thread allocation counter) stay under a small budget.
+ */
+public class AllocationTest {
+    private static final int WARMUP_ROWS = 20000;
+    private static final int ROWS = 20000;
+    private static final long BUDGET_PER_ROW = 16;  // bytes
+
+    private com.sun.management.ThreadMXBean threadMXBean;
+    private ObjectInspector longArrayOI;
+    private DeferredObject[] longArray;
+
+    @Before
+    public void setUp() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        threadMXBean = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+        longArrayOI = ObjectInspectorFactory.getStandardListObjectInspector(
+                PrimitiveObjectInspectorFactory.writableLongObjectInspector);
+        List<Object> array = new ArrayList<Object>();
+        for (int i = 0; i < 1000; i++) {
+            array.add(i % 10 == 0 ? null : new LongWritable(i % 300));
+        }
+        longArray = new DeferredObject[]{new DeferredJavaObject(array)};
+    }
+
+    private long bytesPerRow(GenericUDF udf, DeferredObject[] args) throws HiveException {
+        for (int i = 0; i < WARMUP_ROWS; i++) {
+            udf.evaluate(args);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ROWS; i++) {
+            udf.evaluate(args);
+        }
+        long after = threadMXBean.getThreadAllocatedBytes(threadId);
+
+        return (after - before) / ROWS;
+    }
+
+    private void assertWithinBudget(GenericUDF udf, DeferredObject[] args) throws HiveException {
+        long bytes = bytesPerRow(udf, args);
+        assertTrue(udf.getClass().getSimpleName() + " allocates " + bytes + " bytes per row",
+                bytes <= BUDGET_PER_ROW);
+    }
+
+    @Test
+    public void arrayAggregates() throws HiveException {
+        GenericUDF[] udfs = new GenericUDF[]{new ArraySum(), new ArrayAvg(), new ArrayStd(), new ArrayStats(),
+                new ArrayCount(), new ArrayCountDistinct(), new ArrayCountDistinctApprox(), new ArrayUnique()};
+        for (GenericUDF udf : udfs) {
+            udf.initialize(new ObjectInspector[]{longArrayOI});
+            assertWithinBudget(udf, longArray);
+        }
+    }
+
+    @Test
+    public void floatComparisons() throws HiveException {
+        // floats are compared and hashed without their decimal form
+        ObjectInspector floatArrayOI = ObjectInspectorFactory.getStandardListObjectInspector(
+                PrimitiveObjectInspectorFactory.writableFloatObjectInspector);
+        List<Object> array = new ArrayList<Object>();
+        for (int i = 0; i < 1000; i++) {
+            array.add(i % 10 == 0 ? null : new FloatWritable((i % 300) / 10.0f));
+        }
+        DeferredObject[] floatArray = new DeferredObject[]{new DeferredJavaObject(array)};
+
+        GenericUDF[] udfs = new GenericUDF[]{new ArrayMax(), new ArrayCountDistinct(),
+                new ArrayCountDistinctApprox(), new ArrayUnique()};
+        for (GenericUDF udf : udfs) {
+            udf.initialize(new ObjectInspector[]{floatArrayOI});
+            assertWithinBudget(udf, floatArray);
+        }
+    }
+
+    @Test
+    public void arrayTransforms() throws HiveException {
+        ObjectInspector longOI = PrimitiveObjectInspectorFactory.writableLongObjectInspector;
+        DeferredObject value = new DeferredJavaObject(new LongWritable(100));
+
+        ArrayShift shift = new ArrayShift();
+        shift.initialize(new ObjectInspector[]{longArrayOI, longOI});
+        assertWithinBudget(shift, new DeferredObject[]{longArray[0], value});
+
+        ArrayFind find = new ArrayFind();
+        find.initialize(new ObjectInspector[]{longArrayOI, longOI});
+        assertWithinBudget(find, new DeferredObject[]{longArray[0], value});
+
+        ArrayNullOutlier nullOutlier = new ArrayNullOutlier();
+        nullOutlier.initialize(new ObjectInspector[]{longArrayOI,
+                PrimitiveObjectInspectorFactory.getPrimitiveWritableConstantObjectInspector(
+                        TypeInfoFactory.longTypeInfo, new LongWritable(10)),
+                PrimitiveObjectInspectorFactory.getPrimitiveWritableConstantObjectInspector(
+                        TypeInfoFactory.longTypeInfo, new LongWritable(200))});
+        assertWithinBudget(nullOutlier, new DeferredObject[]{longArray[0],
+                new DeferredJavaObject(null), new DeferredJavaObject(null)});
+    }
+
+    @Test
+    public void scaleMap() throws HiveException {
+        Map<Object, Object> map = new HashMap<Object, Object>();
+        for (int i = 0; i < 100; i++) {
+            map.put(new Text("key" + i), i % 10 == 0 ? null : new LongWritable(i));
+        }
+
+        ScaleMap udf = new ScaleMap();
+        udf.initialize(new ObjectInspector[]{
+                ObjectInspectorFactory.getStandardMapObjectInspector(
+                        PrimitiveObjectInspectorFactory.writableStringObjectInspector,
+                        PrimitiveObjectInspectorFactory.writableLongObjectInspector),
+                PrimitiveObjectInspectorFactory.getPrimitiveWritableConstantObjectInspector(
+                        TypeInfoFactory.doubleTypeInfo, new DoubleWritable(0.5))});
+        assertWithinBudget(udf, new DeferredObject[]{new DeferredJavaObject(map), new DeferredJavaObject(null)});
+    }
+
+    @Test
+    public void hexEncrypt() throws HiveException {
+        HexEncrypt udf = new HexEncrypt();
+        udf.initialize(new ObjectInspector[]{PrimitiveObjectInspectorFactory.writableStringObjectInspector,
+                PrimitiveObjectInspectorFactory.getPrimitiveWritableConstantObjectInspector(
+                        TypeInfoFactory.stringTypeInfo, new Text("cc451dd1207b497b8658d805392a5df5"))});
+        assertWithinBudget(udf, new DeferredObject[]{
+                new DeferredJavaObject(new Text("4fca261c-4cbc-48af-973e-21328334d1d1")),
+                new DeferredJavaObject(null)});
+    }
+}
@@ -0,0 +1,57 @@
+package com.hive.udf;
+
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredJavaObject;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredObject;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.io.LongWritable;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ArrayCountDistinctApproxTest {
+    @Test
+    public void test() throws HiveException {
+        ArrayCountDistinctApprox udf = new ArrayCountDistinctApprox();
+
+        ObjectInspector[] initArgs = new ObjectInspector[1];
+        initArgs[0] = ObjectInspectorFactory.getStandardListObjectInspector(
+                PrimitiveObjectInspectorFactory.javaLongObjectInspector);
+
+        udf.initialize(initArgs);
+
+        List<Long> array = new ArrayList<Long>();
+        for (long i = 0; i < 100000; i++) {
+            array.add(i % 20000);
+        }
+
+        DeferredObject[] args = new DeferredObject[1];
+        args[0] = new DeferredJavaObject(array);
+
+        // 0.81% standard error at the default precision, allow 4 sigma
+        long res = ((LongWritable) udf.evaluate(args)).get();
+        assertEquals(20000.0d, res, 20000 * 0.0324);
+
+        // small cardinalities are handled by linear counting
+        array.clear();
+        array.add(1L);
+        array.add(2L);
+        array.add(1L);
+        res = ((LongWritable) udf.evaluate(args)).get();
+        assertEquals(2L, res);
+
+        // the registers cleared after each row give the same estimate again
+        List<Long> large = new ArrayList<Long>();
+        for (long i = 0; i < 100000; i++) {
+            large.add(i % 20000);
+        }
+        long first = ((LongWritable) udf.evaluate(new DeferredObject[]{new DeferredJavaObject(large)})).get();
+        udf.evaluate(args);
+        assertEquals(first, ((LongWritable) udf.evaluate(new DeferredObject[]{new DeferredJavaObject(large)})).get());
+    }
+}
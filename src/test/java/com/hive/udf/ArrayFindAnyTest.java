@@ -0,0 +1,45 @@
+package com.hive.udf;
+
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredJavaObject;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredObject;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.Text;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ArrayFindAnyTest {
+    @Test
+    public void test() throws HiveException {
+        ObjectInspector arrayOI = ObjectInspectorFactory.getStandardListObjectInspector(
+                PrimitiveObjectInspectorFactory.writableStringObjectInspector);
+        ObjectInspector needlesOI = ObjectInspectorFactory.getStandardConstantListObjectInspector(
+                PrimitiveObjectInspectorFactory.writableStringObjectInspector,
+                Arrays.asList(new Text("beta"), new Text("canary")));
+
+        DeferredObject[] args = new DeferredObject[]{new DeferredJavaObject(Arrays.asList(
+                new Text("alpha"), null, new Text("canary"), new Text("beta")))};
+
+        ArrayFindAny first = new ArrayFindAny();
+        first.initialize(new ObjectInspector[]{arrayOI, needlesOI});
+        assertEquals(2, ((IntWritable) first.evaluate(args)).get());
+
+        ArrayFindAny all = new ArrayFindAny();
+        all.initialize(new ObjectInspector[]{arrayOI, needlesOI,
+                PrimitiveObjectInspectorFactory.getPrimitiveWritableConstantObjectInspector(
+                        TypeInfoFactory.stringTypeInfo, new Text("all"))});
+        assertEquals(Arrays.asList(new IntWritable(2), new IntWritable(3)), all.evaluate(args));
+
+        args[0] = new DeferredJavaObject(Arrays.asList(new Text("alpha")));
+        assertEquals(-1, ((IntWritable) first.evaluate(args)).get());
+        assertEquals(0, ((List<?>) all.evaluate(args)).size());
+    }
+}
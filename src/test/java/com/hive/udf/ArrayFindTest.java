@@ -0,0 +1,60 @@
+package com.hive.udf;
+
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredJavaObject;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredObject;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.Text;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ArrayFindTest {
+    private static ObjectInspector sortedOI() {
+        return PrimitiveObjectInspectorFactory.getPrimitiveWritableConstantObjectInspector(
+                TypeInfoFactory.stringTypeInfo, new Text("sorted"));
+    }
+
+    @Test
+    public void testSorted() throws HiveException {
+        ArrayFind find = new ArrayFind();
+        find.initialize(new ObjectInspector[]{
+                ObjectInspectorFactory.getStandardListObjectInspector(
+                        PrimitiveObjectInspectorFactory.javaIntObjectInspector),
+                PrimitiveObjectInspectorFactory.javaIntObjectInspector, sortedOI()});
+
+        // the first of duplicates, both ends, missing values inside, above and below every element
+        List<Integer> array = Arrays.asList(null, 1, 3, 3, 3, 8, 9);
+        int[][] expected = {{3, 2}, {1, 1}, {9, 6}, {2, -1}, {10, -1}, {0, -1}, {Integer.MIN_VALUE, -1}};
+        for (int[] e : expected) {
+            DeferredObject[] args = new DeferredObject[]{new DeferredJavaObject(array), new DeferredJavaObject(e[0])};
+            assertEquals(e[1], ((IntWritable) find.evaluate(args)).get());
+        }
+    }
+
+    @Test
+    public void testSortedString() throws HiveException {
+        ArrayFind find = new ArrayFind();
+        find.initialize(new ObjectInspector[]{
+                ObjectInspectorFactory.getStandardListObjectInspector(
+                        PrimitiveObjectInspectorFactory.writableStringObjectInspector),
+                PrimitiveObjectInspectorFactory.writableStringObjectInspector, sortedOI()});
+
+        List<Text> array = Arrays.asList(null, new Text("apple"), new Text("kiwi"), new Text("kiwi"),
+                new Text("pear"));
+        Object[][] expected = {{"kiwi", 2}, {"apple", 1}, {"pear", 4}, {"fig", -1}, {"zucchini", -1},
+                {"", -1}, {"Apple", -1}};
+        for (Object[] e : expected) {
+            DeferredObject[] args = new DeferredObject[]{new DeferredJavaObject(array),
+                    new DeferredJavaObject(new Text((String) e[0]))};
+            assertEquals(e[0].toString(), e[1], ((IntWritable) find.evaluate(args)).get());
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.hive.udf;
+
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredJavaObject;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredObject;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.io.Text;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+public class ArrayMinTest {
+    @Test
+    public void test() throws HiveException {
+        ObjectInspector[] initArgs = new ObjectInspector[]{ObjectInspectorFactory.getStandardListObjectInspector(
+                PrimitiveObjectInspectorFactory.writableStringObjectInspector)};
+
+        DeferredObject[] args = new DeferredObject[]{new DeferredJavaObject(
+                Arrays.asList(new Text("b"), new Text("a"), null, new Text("c")))};
+
+        ArrayMin min = new ArrayMin();
+        min.initialize(initArgs);
+        assertEquals(new Text("a"), min.evaluate(args));
+
+        ArrayMax max = new ArrayMax();
+        max.initialize(initArgs);
+        assertEquals(new Text("c"), max.evaluate(args));
+
+        // a leading null is the minimum
+        args[0] = new DeferredJavaObject(Arrays.asList(null, new Text("b"), new Text("a")));
+        assertEquals(null, min.evaluate(args));
+
+        args[0] = new DeferredJavaObject(Arrays.asList(null, null));
+        assertEquals(null, min.evaluate(args));
+    }
+}
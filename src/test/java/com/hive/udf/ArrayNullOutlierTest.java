@@ -0,0 +1,38 @@
+package com.hive.udf;
+
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredJavaObject;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredObject;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+public class ArrayNullOutlierTest {
+    @Test
+    public void test() throws HiveException {
+        ObjectInspector[] initArgs = new ObjectInspector[]{
+                ObjectInspectorFactory.getStandardListObjectInspector(
+                        PrimitiveObjectInspectorFactory.javaIntObjectInspector),
+                PrimitiveObjectInspectorFactory.javaIntObjectInspector,
+                PrimitiveObjectInspectorFactory.javaIntObjectInspector};
+        ArrayNullOutlier udf = new ArrayNullOutlier();
+        udf.initialize(initArgs);
+        Object array = Arrays.asList(1, 5, null, 9, 3);
+
+        assertEquals(Arrays.asList(null, 5, null, null, 3), udf.evaluate(new DeferredObject[]{
+                new DeferredJavaObject(array), new DeferredJavaObject(2), new DeferredJavaObject(9)}));
+
+        // a null lower bound is no lower bound
+        assertEquals(Arrays.asList(1, 5, null, null, 3), udf.evaluate(new DeferredObject[]{
+                new DeferredJavaObject(array), new DeferredJavaObject(null), new DeferredJavaObject(9)}));
+
+        // a null upper bound keeps no element
+        assertEquals(Arrays.asList(null, null, null, null, null), udf.evaluate(new DeferredObject[]{
+                new DeferredJavaObject(array), new DeferredJavaObject(2), new DeferredJavaObject(null)}));
+    }
+}
@@ -0,0 +1,47 @@
+package com.hive.udf;
+
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredJavaObject;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredObject;
+import org.apache.hadoop.hive.serde2.io.DoubleWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ArrayPercentileTest {
+    private static final ObjectInspector ARRAY_OI = ObjectInspectorFactory.getStandardListObjectInspector(
+            PrimitiveObjectInspectorFactory.javaDoubleObjectInspector);
+
+    @Test
+    public void test() throws HiveException {
+        List<Double> array = Arrays.asList(7.0, null, 1.0, 9.0, 3.0, 5.0);
+
+        ArrayMedian median = new ArrayMedian();
+        median.initialize(new ObjectInspector[]{ARRAY_OI});
+        assertEquals(5.0d, ((DoubleWritable) median.evaluate(
+                new DeferredObject[]{new DeferredJavaObject(array)})).get(), 0);
+
+        // rank 0.9 * 4 = 3.6 between 7 and 9
+        ArrayPercentile percentile = new ArrayPercentile();
+        percentile.initialize(new ObjectInspector[]{ARRAY_OI, PrimitiveObjectInspectorFactory.javaDoubleObjectInspector});
+        assertEquals(8.2d, ((DoubleWritable) percentile.evaluate(new DeferredObject[]{
+                new DeferredJavaObject(array), new DeferredJavaObject(0.9d)})).get(), 1E-9);
+
+        ArrayPercentile percentiles = new ArrayPercentile();
+        percentiles.initialize(new ObjectInspector[]{ARRAY_OI, ARRAY_OI});
+        List<?> res = (List<?>) percentiles.evaluate(new DeferredObject[]{
+                new DeferredJavaObject(array), new DeferredJavaObject(Arrays.asList(0.0d, 0.25d, null, 0.9d, 1.0d))});
+        assertEquals(5, res.size());
+        assertEquals(1.0d, ((DoubleWritable) res.get(0)).get(), 0);
+        assertEquals(3.0d, ((DoubleWritable) res.get(1)).get(), 0);
+        assertEquals(null, res.get(2));
+        assertEquals(8.2d, ((DoubleWritable) res.get(3)).get(), 1E-9);
+        assertEquals(9.0d, ((DoubleWritable) res.get(4)).get(), 0);
+    }
+}
@@ -0,0 +1,51 @@
+package com.hive.udf;
+
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredJavaObject;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredObject;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+import org.apache.hadoop.io.Text;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ArraySetOperationTest {
+    private static final ObjectInspector ARRAY_OI = ObjectInspectorFactory.getStandardListObjectInspector(
+            PrimitiveObjectInspectorFactory.javaIntObjectInspector);
+    private static final ObjectInspector SORTED_OI = PrimitiveObjectInspectorFactory
+            .getPrimitiveWritableConstantObjectInspector(TypeInfoFactory.stringTypeInfo, new Text("sorted"));
+
+    private static Object evaluate(GenericUDF udf, boolean sorted, List<Integer> a, List<Integer> b)
+            throws HiveException {
+        udf.initialize(sorted ? new ObjectInspector[]{ARRAY_OI, ARRAY_OI, SORTED_OI}
+                : new ObjectInspector[]{ARRAY_OI, ARRAY_OI});
+        return udf.evaluate(new DeferredObject[]{new DeferredJavaObject(a), new DeferredJavaObject(b)});
+    }
+
+    @Test
+    public void test() throws HiveException {
+        List<Integer> a = Arrays.asList(5, 1, null, 3, 5, 7);
+        List<Integer> b = Arrays.asList(7, 2, 5, 2, null);
+
+        assertEquals(Arrays.asList(5, 7), evaluate(new ArrayIntersect(), false, a, b));
+        assertEquals(Arrays.asList(5, 1, 3, 7, 2), evaluate(new ArrayUnion(), false, a, b));
+        assertEquals(Arrays.asList(1, 3), evaluate(new ArrayExcept(), false, a, b));
+    }
+
+    @Test
+    public void testSorted() throws HiveException {
+        List<Integer> a = Arrays.asList(null, 1, 3, 5, 5, 7);
+        List<Integer> b = Arrays.asList(null, null, 2, 2, 5, 7, 9);
+
+        assertEquals(Arrays.asList(5, 7), evaluate(new ArrayIntersect(), true, a, b));
+        assertEquals(Arrays.asList(1, 2, 3, 5, 7, 9), evaluate(new ArrayUnion(), true, a, b));
+        assertEquals(Arrays.asList(1, 3), evaluate(new ArrayExcept(), true, a, b));
+    }
+}
@@ -0,0 +1,39 @@
+package com.hive.udf;
+
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredJavaObject;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredObject;
+import org.apache.hadoop.hive.serde2.io.DoubleWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.io.IntWritable;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+public class ArrayStatsTest {
+    @Test
+    public void test() throws HiveException {
+        ArrayStats udf = new ArrayStats();
+
+        ObjectInspector[] initArgs = new ObjectInspector[1];
+        initArgs[0] = ObjectInspectorFactory.getStandardListObjectInspector(
+                PrimitiveObjectInspectorFactory.javaLongObjectInspector);
+
+        udf.initialize(initArgs);
+
+        DeferredObject[] args = new DeferredObject[1];
+        args[0] = new DeferredJavaObject(Arrays.asList(2L, 4L, null, 4L, 4L, 5L, 5L, 7L, 9L));
+
+        Object[] res = (Object[]) udf.evaluate(args);
+        assertEquals(8, ((IntWritable) res[0]).get());
+        assertEquals(40.0d, ((DoubleWritable) res[1]).get(), 1E-6);
+        assertEquals(5.0d, ((DoubleWritable) res[2]).get(), 1E-6);
+        assertEquals(Math.sqrt(32.0d / 7), ((DoubleWritable) res[3]).get(), 1E-6);
+        assertEquals(2.0d, ((DoubleWritable) res[4]).get(), 1E-6);
+        assertEquals(9.0d, ((DoubleWritable) res[5]).get(), 1E-6);
+    }
+}
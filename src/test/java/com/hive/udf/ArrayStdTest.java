@@ -0,0 +1,41 @@
+package com.hive.udf;
+
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredJavaObject;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredObject;
+import org.apache.hadoop.hive.serde2.io.DoubleWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ArrayStdTest {
+    @Test
+    public void test() throws HiveException {
+        ArrayStd udf = new ArrayStd();
+
+        ObjectInspector[] initArgs = new ObjectInspector[1];
+        initArgs[0] = ObjectInspectorFactory.getStandardListObjectInspector(
+                PrimitiveObjectInspectorFactory.javaLongObjectInspector);
+
+        udf.initialize(initArgs);
+
+        // epoch millis: the sum of squares formula cancels catastrophically on these
+        List<Long> array = new ArrayList<Long>();
+        for (long i = 0; i < 5; i++) {
+            array.add(1600000000000L + i);
+        }
+        array.add(null);
+
+        DeferredObject[] args = new DeferredObject[1];
+        args[0] = new DeferredJavaObject(array);
+
+        double res = ((DoubleWritable) udf.evaluate(args)).get();
+        assertEquals(Math.sqrt(2.5d), res, 1E-9);
+    }
+}
@@ -0,0 +1,60 @@
+package com.hive.udf;
+
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredJavaObject;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredObject;
+import org.apache.hadoop.hive.serde2.io.DoubleWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+import org.apache.hadoop.io.Text;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ArraySumTest {
+    @Test
+    public void test() throws HiveException {
+        ObjectInspector arrayOI = ObjectInspectorFactory.getStandardListObjectInspector(
+                PrimitiveObjectInspectorFactory.javaDoubleObjectInspector);
+
+        List<Double> array = new ArrayList<Double>();
+        array.add(1E16);
+        array.add(1.0d);
+        array.add(-1E16);
+
+        DeferredObject[] args = new DeferredObject[2];
+        args[0] = new DeferredJavaObject(array);
+        args[1] = new DeferredJavaObject(null);
+
+        // 1E16 + 1 is rounded to 1E16 by the plain summation
+        ArraySum fast = new ArraySum();
+        fast.initialize(new ObjectInspector[]{arrayOI});
+        assertEquals(0.0d, ((DoubleWritable) fast.evaluate(args)).get(), 0);
+
+        ArraySum compensated = new ArraySum();
+        compensated.initialize(new ObjectInspector[]{arrayOI,
+                PrimitiveObjectInspectorFactory.getPrimitiveWritableConstantObjectInspector(
+                        TypeInfoFactory.stringTypeInfo, new Text("compensated"))});
+        assertEquals(1.0d, ((DoubleWritable) compensated.evaluate(args)).get(), 0);
+    }
+
+    @Test
+    public void testFloat() throws HiveException {
+        ObjectInspector arrayOI = ObjectInspectorFactory.getStandardListObjectInspector(
+                PrimitiveObjectInspectorFactory.javaFloatObjectInspector);
+        List<Float> array = new ArrayList<Float>();
+        array.add(0.1f);
+        array.add(0.2f);
+
+        // Floats are read through their decimal form, as Double.parseDouble(v.toString()) did
+        ArraySum sum = new ArraySum();
+        sum.initialize(new ObjectInspector[]{arrayOI});
+        assertEquals(0.1d + 0.2d, ((DoubleWritable) sum.evaluate(
+                new DeferredObject[]{new DeferredJavaObject(array)})).get(), 0);
+    }
+}
@@ -0,0 +1,56 @@
+package com.hive.udf;
+
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredJavaObject;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredObject;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.io.IntWritable;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ArrayTopKTest {
+    @Test
+    public void test() throws HiveException {
+        ObjectInspector[] initArgs = new ObjectInspector[]{
+                ObjectInspectorFactory.getStandardListObjectInspector(
+                        PrimitiveObjectInspectorFactory.javaIntObjectInspector),
+                PrimitiveObjectInspectorFactory.javaIntObjectInspector};
+
+        DeferredObject[] args = new DeferredObject[]{
+                new DeferredJavaObject(Arrays.asList(5, null, 1, 9, 3, 9, 7)),
+                new DeferredJavaObject(3)};
+
+        ArrayTopK top = new ArrayTopK();
+        top.initialize(initArgs);
+        assertEquals(Arrays.asList(9, 9, 7), top.evaluate(args));
+
+        ArrayBottomK bottom = new ArrayBottomK();
+        bottom.initialize(initArgs);
+        assertEquals(Arrays.asList(1, 3, 5), bottom.evaluate(args));
+
+        // equal elements keep their order in the array
+        ArrayTopKIndex topIndex = new ArrayTopKIndex();
+        topIndex.initialize(initArgs);
+        assertEquals(Arrays.asList(3, 5, 6), toInts((List<?>) topIndex.evaluate(args)));
+
+        ArrayBottomKIndex bottomIndex = new ArrayBottomKIndex();
+        bottomIndex.initialize(initArgs);
+        args[1] = new DeferredJavaObject(10);
+        assertEquals(Arrays.asList(2, 4, 0, 6, 3, 5), toInts((List<?>) bottomIndex.evaluate(args)));
+    }
+
+    private static List<Integer> toInts(List<?> writables) {
+        List<Integer> ints = new ArrayList<Integer>();
+        for (Object w : writables) {
+            ints.add(((IntWritable) w).get());
+        }
+        return ints;
+    }
+}
@@ -0,0 +1,52 @@
+package com.hive.udf;
+
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredJavaObject;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredObject;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.io.Text;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ArrayUniqueTest {
+    @Test
+    public void test() throws HiveException {
+        ArrayUnique udf = new ArrayUnique();
+
+        ObjectInspector[] initArgs = new ObjectInspector[1];
+        initArgs[0] = ObjectInspectorFactory.getStandardListObjectInspector(
+                PrimitiveObjectInspectorFactory.writableStringObjectInspector);
+
+        udf.initialize(initArgs);
+
+        DeferredObject[] args = new DeferredObject[1];
+        args[0] = new DeferredJavaObject(Arrays.asList(
+                new Text("b"), new Text("a"), null, new Text("b"), new Text("c"), new Text("a")));
+
+        List<Object> res = (List<Object>) udf.evaluate(args);
+        assertEquals(Arrays.asList(new Text("b"), new Text("a"), new Text("c")), res);
+
+        // the set is reused, the second row must not see the first one
+        args[0] = new DeferredJavaObject(Arrays.asList(new Text("c"), new Text("d")));
+        res = (List<Object>) udf.evaluate(args);
+        assertEquals(Arrays.asList(new Text("c"), new Text("d")), res);
+
+        // after a large row the set is shrunk back for small rows
+        List<Text> large = new ArrayList<Text>();
+        for (int i = 0; i < 100000; i++) {
+            large.add(new Text("k" + (i % 50000)));
+        }
+        args[0] = new DeferredJavaObject(large);
+        assertEquals(50000, ((List<Object>) udf.evaluate(args)).size());
+        args[0] = new DeferredJavaObject(Arrays.asList(new Text("k1"), new Text("e"), new Text("k1")));
+        res = (List<Object>) udf.evaluate(args);
+        assertEquals(Arrays.asList(new Text("k1"), new Text("e")), res);
+    }
+}
@@ -0,0 +1,87 @@
+package com.hive.udf;
+
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDAFEvaluator;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+import org.apache.hadoop.io.Text;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+
+public class CombineMapsStatsTest {
+    private static final ObjectInspector MAP_OI = ObjectInspectorFactory.getStandardMapObjectInspector(
+            PrimitiveObjectInspectorFactory.javaStringObjectInspector,
+            PrimitiveObjectInspectorFactory.javaDoubleObjectInspector);
+
+    private static Map<String, Double> input(double a, Double b) {
+        Map<String, Double> input = new HashMap<String, Double>();
+        input.put("a", a);
+        input.put("b", b);
+        return input;
+    }
+
+    @Test
+    public void testComplete() throws HiveException {
+        CombineMapsStats.Evaluator udf = new CombineMapsStats.Evaluator();
+        udf.init(GenericUDAFEvaluator.Mode.COMPLETE, new ObjectInspector[]{MAP_OI});
+        GenericUDAFEvaluator.AggregationBuffer agg = udf.getNewAggregationBuffer();
+        udf.iterate(agg, new Object[]{input(6, null)});
+        udf.iterate(agg, new Object[]{input(2, null)});
+        udf.iterate(agg, new Object[]{input(10, 1.0d)});
+
+        Map<Object, Object> res = (Map<Object, Object>) udf.terminate(agg);
+        Object[] a = (Object[]) res.get("a");
+        assertEquals(18.0d, (Double) a[0], 1E-6);
+        assertEquals(2.0d, (Double) a[1], 1E-6);
+        assertEquals(10.0d, (Double) a[2], 1E-6);
+        assertEquals(3L, a[3]);
+        assertEquals(6.0d, (Double) a[4], 1E-6);
+
+        Object[] b = (Object[]) res.get("b");
+        assertEquals(1L, b[3]);
+        assertEquals(1.0d, (Double) b[4], 1E-6);
+    }
+
+    @Test
+    public void testPartials() throws HiveException {
+        ObjectInspector reductionsOI = PrimitiveObjectInspectorFactory.getPrimitiveWritableConstantObjectInspector(
+                TypeInfoFactory.stringTypeInfo, new Text("min, avg"));
+        CombineMapsStats.Evaluator partial1 = new CombineMapsStats.Evaluator();
+        ObjectInspector partialOI = partial1.init(GenericUDAFEvaluator.Mode.PARTIAL1,
+                new ObjectInspector[]{MAP_OI, reductionsOI});
+        CombineMapsStats.Evaluator finalEvaluator = new CombineMapsStats.Evaluator();
+        finalEvaluator.init(GenericUDAFEvaluator.Mode.FINAL, new ObjectInspector[]{partialOI});
+        GenericUDAFEvaluator.AggregationBuffer finalAgg = finalEvaluator.getNewAggregationBuffer();
+
+        double[][] values = {{6, 2}, {10}, {}};
+        for (double[] v : values) {
+            GenericUDAFEvaluator.AggregationBuffer agg = partial1.getNewAggregationBuffer();
+            for (double d : v) {
+                partial1.iterate(agg, new Object[]{input(d, null), null});
+            }
+            finalEvaluator.merge(finalAgg, ObjectInspectorUtils.copyToStandardObject(
+                    partial1.terminatePartial(agg), partialOI));
+        }
+
+        Map<Object, Object> res = (Map<Object, Object>) finalEvaluator.terminate(finalAgg);
+        Object[] a = (Object[]) res.get("a");
+        assertEquals(18.0d, (Double) a[0], 1E-6);
+        assertEquals(2.0d, (Double) a[1], 1E-6);
+        assertNull(a[2]);  // max is not computed
+        assertEquals(3L, a[3]);
+        assertEquals(6.0d, (Double) a[4], 1E-6);
+
+        Object[] b = (Object[]) res.get("b");  // only null values
+        assertEquals(0L, b[3]);
+        assertNull(b[4]);
+    }
+}
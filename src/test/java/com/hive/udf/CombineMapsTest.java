@@ -4,6 +4,7 @@ import org.apache.hadoop.hive.ql.metadata.HiveException;
 import org.apache.hadoop.hive.ql.udf.generic.GenericUDAFEvaluator;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils;
 import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
 import org.junit.Test;
 
@@ -11,6 +12,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 
 public class CombineMapsTest {
@@ -46,4 +48,66 @@ public class CombineMapsTest {
         Map<Object, Double> res = (Map<Object, Double>) udf.terminate(agg);
         assertEquals(16.0d, res.get("a").doubleValue(), 1E-6);
     }
+
+    @Test
+    public void testEstimate() throws HiveException {
+        CombineMaps.Evaluator udf = new CombineMaps.Evaluator();
+        udf.init(GenericUDAFEvaluator.Mode.PARTIAL1, new ObjectInspector[]{
+                ObjectInspectorFactory.getStandardMapObjectInspector(
+                        PrimitiveObjectInspectorFactory.javaStringObjectInspector,
+                        PrimitiveObjectInspectorFactory.javaDoubleObjectInspector)});
+        CombineMaps.State agg = (CombineMaps.State) udf.getNewAggregationBuffer();
+        int empty = agg.estimate();
+
+        Map<String, Double> input = new HashMap<String, Double>();
+        for (int i = 0; i < 1000; i++) {
+            input.put("key-" + i, (double) i);
+        }
+        udf.iterate(agg, new Object[]{input});
+        int full = agg.estimate();
+        assertTrue(full > empty + 1000 * 64);
+
+        // same keys again, the state does not grow
+        udf.iterate(agg, new Object[]{input});
+        assertEquals(full, agg.estimate());
+
+        udf.reset(agg);
+        assertEquals(empty, agg.estimate());
+    }
+
+    @Test
+    public void testPartials() throws HiveException {
+        ObjectInspector mapOI = ObjectInspectorFactory.getStandardMapObjectInspector(
+                PrimitiveObjectInspectorFactory.javaStringObjectInspector,
+                PrimitiveObjectInspectorFactory.javaDoubleObjectInspector);
+
+        CombineMaps.Evaluator partial1 = new CombineMaps.Evaluator();
+        ObjectInspector partialOI = partial1.init(GenericUDAFEvaluator.Mode.PARTIAL1, new ObjectInspector[]{mapOI});
+        CombineMaps.Evaluator finalEvaluator = new CombineMaps.Evaluator();
+        finalEvaluator.init(GenericUDAFEvaluator.Mode.FINAL, new ObjectInspector[]{partialOI});
+        GenericUDAFEvaluator.AggregationBuffer finalAgg = finalEvaluator.getNewAggregationBuffer();
+
+        String[][] keys = {{"d", "b", "a"}, {"c", "a", "e"}, {"e", "b"}};
+        for (String[] k : keys) {
+            GenericUDAFEvaluator.AggregationBuffer agg = partial1.getNewAggregationBuffer();
+            Map<String, Double> input = new HashMap<String, Double>();
+            for (String key : k) {
+                input.put(key, 1.0d);
+            }
+            input.put("n", null);
+            partial1.iterate(agg, new Object[]{input});
+            finalEvaluator.merge(finalAgg, ObjectInspectorUtils.copyToStandardObject(
+                    partial1.terminatePartial(agg), partialOI));
+        }
+
+        Map<Object, Double> res = (Map<Object, Double>) finalEvaluator.terminate(finalAgg);
+        assertEquals(6, res.size());
+        assertEquals(2.0d, res.get("a"), 1E-6);
+        assertEquals(2.0d, res.get("b"), 1E-6);
+        assertEquals(1.0d, res.get("c"), 1E-6);
+        assertEquals(1.0d, res.get("d"), 1E-6);
+        assertEquals(2.0d, res.get("e"), 1E-6);
+        assertTrue(res.containsKey("n"));
+        assertEquals(null, res.get("n"));
+    }
 }
@@ -0,0 +1,110 @@
+package com.hive.udf;
+
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDAFEvaluator;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+import org.apache.hadoop.io.IntWritable;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+
+public class CombineMapsTopKTest {
+    private static final ObjectInspector MAP_OI = ObjectInspectorFactory.getStandardMapObjectInspector(
+            PrimitiveObjectInspectorFactory.javaStringObjectInspector,
+            PrimitiveObjectInspectorFactory.javaDoubleObjectInspector);
+    private static final ObjectInspector K_OI = PrimitiveObjectInspectorFactory.getPrimitiveWritableConstantObjectInspector(
+            TypeInfoFactory.intTypeInfo, new IntWritable(10));
+
+    /**
+     * Three heavy keys with a sum of 10000, 20000 and 30000 and 1000 light keys with a sum of 1.
+     * The heavy keys are above (sum of all values) / k and must be returned.
+     */
+    private static Map<String, Double> input(int part, int parts) {
+        Map<String, Double> input = new HashMap<String, Double>();
+        input.put("h1", 10000.0d / parts);
+        input.put("h2", 20000.0d / parts);
+        input.put("h3", 30000.0d / parts);
+        for (int i = part; i < 1000; i += parts) {
+            input.put("l" + i, 1.0d);
+        }
+        return input;
+    }
+
+    private static void assertTopK(Map<Object, Object> res) {
+        assertEquals(10, res.size());
+        for (int h = 1; h <= 3; h++) {
+            Object[] sumError = (Object[]) res.get("h" + h);
+            double sum = (Double) sumError[0];
+            double error = (Double) sumError[1];
+            assertTrue(sum >= h * 10000.0d - 1E-6);
+            assertTrue(sum - error <= h * 10000.0d + 1E-6);
+        }
+    }
+
+    @Test
+    public void testComplete() throws HiveException {
+        CombineMapsTopK.Evaluator udf = new CombineMapsTopK.Evaluator();
+        udf.init(GenericUDAFEvaluator.Mode.COMPLETE, new ObjectInspector[]{MAP_OI, K_OI});
+        GenericUDAFEvaluator.AggregationBuffer agg = udf.getNewAggregationBuffer();
+        for (int part = 0; part < 10; part++) {
+            udf.iterate(agg, new Object[]{input(part, 10), null});
+        }
+        assertTopK((Map<Object, Object>) udf.terminate(agg));
+    }
+
+    @Test
+    public void testPartials() throws HiveException {
+        CombineMapsTopK.Evaluator partial1 = new CombineMapsTopK.Evaluator();
+        ObjectInspector partialOI = partial1.init(GenericUDAFEvaluator.Mode.PARTIAL1, new ObjectInspector[]{MAP_OI, K_OI});
+        CombineMapsTopK.Evaluator finalEvaluator = new CombineMapsTopK.Evaluator();
+        finalEvaluator.init(GenericUDAFEvaluator.Mode.FINAL, new ObjectInspector[]{partialOI});
+        GenericUDAFEvaluator.AggregationBuffer finalAgg = finalEvaluator.getNewAggregationBuffer();
+
+        for (int part = 0; part < 4; part++) {
+            GenericUDAFEvaluator.AggregationBuffer agg = partial1.getNewAggregationBuffer();
+            partial1.iterate(agg, new Object[]{input(part, 4), null});
+            finalEvaluator.merge(finalAgg, ObjectInspectorUtils.copyToStandardObject(
+                    partial1.terminatePartial(agg), partialOI));
+        }
+        assertTopK((Map<Object, Object>) finalEvaluator.terminate(finalAgg));
+    }
+
+    @Test
+    public void testEstimate() throws HiveException {
+        ObjectInspector longMapOI = ObjectInspectorFactory.getStandardMapObjectInspector(
+                PrimitiveObjectInspectorFactory.javaLongObjectInspector,
+                PrimitiveObjectInspectorFactory.javaDoubleObjectInspector);
+        Map<Long, Double> longKeys = new HashMap<Long, Double>();
+        Map<String, Double> stringKeys = new HashMap<String, Double>();
+        StringBuilder prefix = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            prefix.append('x');
+        }
+        for (int i = 0; i < 10; i++) {
+            longKeys.put((long) i, 1.0d);
+            stringKeys.put(prefix.toString() + i, 1.0d);
+        }
+
+        CombineMapsTopK.Evaluator longUdf = new CombineMapsTopK.Evaluator();
+        longUdf.init(GenericUDAFEvaluator.Mode.PARTIAL1, new ObjectInspector[]{longMapOI, K_OI});
+        CombineMapsTopK.TopKAgg longAgg = (CombineMapsTopK.TopKAgg) longUdf.getNewAggregationBuffer();
+        longUdf.iterate(longAgg, new Object[]{longKeys, null});
+
+        CombineMapsTopK.Evaluator stringUdf = new CombineMapsTopK.Evaluator();
+        stringUdf.init(GenericUDAFEvaluator.Mode.PARTIAL1, new ObjectInspector[]{MAP_OI, K_OI});
+        CombineMapsTopK.TopKAgg stringAgg = (CombineMapsTopK.TopKAgg) stringUdf.getNewAggregationBuffer();
+        stringUdf.iterate(stringAgg, new Object[]{stringKeys, null});
+
+        // the 10 keys of 200 bytes are accounted for
+        assertTrue(stringAgg.estimate() - longAgg.estimate() >= 10 * 200);
+    }
+}
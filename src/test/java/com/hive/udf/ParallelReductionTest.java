@@ -0,0 +1,56 @@
+package com.hive.udf;
+
+import org.apache.hadoop.hive.ql.exec.UDFArgumentTypeException;
+import org.apache.hadoop.hive.serde2.objectinspector.ListObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class ParallelReductionTest {
+    @Test
+    public void test() throws UDFArgumentTypeException {
+        ListObjectInspector arrayOI = ObjectInspectorFactory.getStandardListObjectInspector(
+                PrimitiveObjectInspectorFactory.javaDoubleObjectInspector);
+        ParallelReduction parallel = new ParallelReduction(
+                NumericReader.of(PrimitiveObjectInspectorFactory.javaDoubleObjectInspector, 0));
+
+        // several chunks of values around a large offset, with some nulls
+        Random random = new Random(42);
+        List<Double> array = new ArrayList<Double>();
+        for (int i = 0; i < 5 * ParallelReduction.CHUNK + 123; i++) {
+            array.add(i % 10 == 0 ? null : 1E9 + random.nextGaussian());
+        }
+        array.set(1001, 2E9);  // the maximum, twice
+        array.set(200001, 2E9);
+        array.set(300001, -1.0d);
+
+        double sum = 0;
+        double mean = 0;
+        double m2 = 0;
+        int n = 0;
+        for (Double v : array) {
+            if (v != null) {
+                sum += v;
+                n++;
+                double delta = v - mean;
+                mean += delta / n;
+                m2 += delta * (v - mean);
+            }
+        }
+
+        ParallelReduction.Moments moments = parallel.moments(arrayOI, array, true);
+        assertEquals(n, moments.n);
+        assertEquals(sum, moments.sum(), Math.abs(sum) * 1E-12);
+        assertEquals(mean, moments.mean, 1E-6);
+        assertEquals(m2, moments.m2, m2 * 1E-9);
+
+        assertEquals(1001, parallel.extreme(arrayOI, array, true));
+        assertEquals(300001, parallel.extreme(arrayOI, array, false));
+    }
+}
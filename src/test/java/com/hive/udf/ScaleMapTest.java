@@ -3,6 +3,7 @@ package com.hive.udf;
 import org.apache.hadoop.hive.ql.metadata.HiveException;
 import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredJavaObject;
 import org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredObject;
+import org.apache.hadoop.hive.serde2.io.DoubleWritable;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
 import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
@@ -40,7 +41,7 @@ public class ScaleMapTest {
         args[1] = new DeferredJavaObject(Double.valueOf(2));
 
 
-        Map<Object, Double> res = udf.evaluate(args);
-        assertEquals(16.0d, res.get("b").doubleValue(), 1E-6);
+        Map<Object, DoubleWritable> res = udf.evaluate(args);
+        assertEquals(16.0d, res.get("b").get(), 1E-6);
     }
 }
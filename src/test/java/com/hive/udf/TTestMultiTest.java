@@ -0,0 +1,72 @@
+package com.hive.udf;
+
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDAFEvaluator;
+import org.apache.hadoop.hive.serde2.io.DoubleWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class TTestMultiTest {
+    @Test
+    public void test() throws HiveException {
+        ObjectInspector arrayOI = ObjectInspectorFactory.getStandardListObjectInspector(
+                PrimitiveObjectInspectorFactory.javaDoubleObjectInspector);
+        int metrics = 3;
+
+        // Two map side partials merged on the reduce side, against one t_test per metric
+        GenericUDAFEvaluator partial = new TTestMulti.Evaluator();
+        ObjectInspector partialOI = partial.init(GenericUDAFEvaluator.Mode.PARTIAL1,
+                new ObjectInspector[]{arrayOI, arrayOI});
+        GenericUDAFEvaluator.AggregationBuffer[] partialAggs = {
+                partial.getNewAggregationBuffer(), partial.getNewAggregationBuffer()};
+        GenericUDAFEvaluator[] expected = new GenericUDAFEvaluator[metrics];
+        GenericUDAFEvaluator.AggregationBuffer[] expectedAggs = new GenericUDAFEvaluator.AggregationBuffer[metrics];
+        for (int m = 0; m < metrics; m++) {
+            expected[m] = new TTest.TTestGenericEvaluator();
+            expected[m].init(GenericUDAFEvaluator.Mode.COMPLETE, new ObjectInspector[]{
+                    PrimitiveObjectInspectorFactory.javaDoubleObjectInspector,
+                    PrimitiveObjectInspectorFactory.javaDoubleObjectInspector});
+            expectedAggs[m] = expected[m].getNewAggregationBuffer();
+        }
+
+        // The last metric only has one x value in total
+        Random random = new Random(11);
+        for (int i = 0; i < 200; i++) {
+            Double[] y = new Double[metrics];
+            Double[] x = new Double[metrics];
+            for (int m = 0; m < metrics; m++) {
+                y[m] = i % 5 == m ? null : 10 * m + random.nextGaussian();
+                x[m] = m == metrics - 1 && i > 0 ? null : 10 * m + 0.2 + random.nextGaussian();
+                expected[m].iterate(expectedAggs[m], new Object[]{y[m], x[m]});
+            }
+            partial.iterate(partialAggs[i % 2], new Object[]{Arrays.asList(y), Arrays.asList(x)});
+        }
+
+        GenericUDAFEvaluator merger = new TTestMulti.Evaluator();
+        merger.init(GenericUDAFEvaluator.Mode.FINAL, new ObjectInspector[]{partialOI});
+        GenericUDAFEvaluator.AggregationBuffer mergeAgg = merger.getNewAggregationBuffer();
+        merger.merge(mergeAgg, partial.terminatePartial(partialAggs[0]));
+        merger.merge(mergeAgg, partial.terminatePartial(partialAggs[1]));
+
+        List<?> actual = (List<?>) merger.terminate(mergeAgg);
+        assertEquals(metrics, actual.size());
+        for (int m = 0; m < metrics - 1; m++) {
+            Object[] e = (Object[]) expected[m].terminate(expectedAggs[m]);
+            Object[] a = (Object[]) actual.get(m);
+            for (int f = 0; f < 2; f++) {
+                double v = ((DoubleWritable) e[f]).get();
+                assertEquals(v, ((DoubleWritable) a[f]).get(), Math.abs(v) * 1E-9);
+            }
+        }
+        assertNull(actual.get(metrics - 1));
+    }
+}
@@ -0,0 +1,96 @@
+package com.hive.udf;
+
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.parse.WindowingSpec.BoundarySpec;
+import org.apache.hadoop.hive.ql.parse.WindowingSpec.Direction;
+import org.apache.hadoop.hive.ql.parse.WindowingSpec.WindowType;
+import org.apache.hadoop.hive.ql.plan.ptf.BoundaryDef;
+import org.apache.hadoop.hive.ql.plan.ptf.WindowFrameDef;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDAFEvaluator;
+import org.apache.hadoop.hive.ql.udf.generic.ISupportStreamingModeForWindowing;
+import org.apache.hadoop.hive.serde2.io.DoubleWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class TTestStreamingTest {
+    private static final ObjectInspector[] INPUT_OIS = {
+            PrimitiveObjectInspectorFactory.javaDoubleObjectInspector,
+            PrimitiveObjectInspectorFactory.javaDoubleObjectInspector};
+
+    @Test
+    public void test() throws HiveException {
+        // Large offsets with a unit variance, nulls and a constant stretch
+        int n = 500;
+        Double[][] rows = new Double[n][];
+        Random random = new Random(5);
+        for (int i = 0; i < n; i++) {
+            rows[i] = new Double[]{
+                    i % 11 == 0 ? null : 1E6 + random.nextGaussian(),
+                    i > 200 && i < 260 ? 3.0d : 1E6 + 0.5 + random.nextGaussian()};
+        }
+
+        check(rows, new BoundaryDef(Direction.PRECEDING, 27), new BoundaryDef(Direction.CURRENT, 0));
+        check(rows, new BoundaryDef(Direction.PRECEDING, 2), new BoundaryDef(Direction.FOLLOWING, 2));
+        check(rows, new BoundaryDef(Direction.FOLLOWING, 1), new BoundaryDef(Direction.FOLLOWING, 3));
+        check(rows, new BoundaryDef(Direction.PRECEDING, BoundarySpec.UNBOUNDED_AMOUNT),
+                new BoundaryDef(Direction.CURRENT, 0));
+    }
+
+    /**
+     * Stream the rows like the windowing operator and compare with t_test over every frame.
+     */
+    private void check(Double[][] rows, BoundaryDef start, BoundaryDef end) throws HiveException {
+        TTest.TTestGenericEvaluator evaluator = new TTest.TTestGenericEvaluator();
+        evaluator.init(GenericUDAFEvaluator.Mode.COMPLETE, INPUT_OIS);
+        GenericUDAFEvaluator streaming = evaluator.getWindowingEvaluator(
+                new WindowFrameDef(WindowType.ROWS, start, end));
+        GenericUDAFEvaluator.AggregationBuffer agg = streaming.getNewAggregationBuffer();
+
+        List<Object> results = new ArrayList<Object>();
+        ISupportStreamingModeForWindowing stream = (ISupportStreamingModeForWindowing) streaming;
+        for (Double[] row : rows) {
+            streaming.iterate(agg, row);
+            collect(results, stream.getNextResult(agg));
+        }
+        streaming.terminate(agg);
+        for (int i = 0; i < stream.getRowsRemainingAfterTerminate(); i++) {
+            collect(results, stream.getNextResult(agg));
+        }
+        assertEquals(rows.length, results.size());
+
+        for (int r = 0; r < rows.length; r++) {
+            GenericUDAFEvaluator.AggregationBuffer frame = evaluator.getNewAggregationBuffer();
+            int from = start.isUnbounded() ? 0 : Math.max(0, r + start.getRelativeOffset());
+            int to = Math.min(rows.length - 1, r + end.getRelativeOffset());
+            for (int i = from; i <= to; i++) {
+                evaluator.iterate(frame, rows[i]);
+            }
+
+            Object[] expected = (Object[]) evaluator.terminate(frame);
+            Object[] actual = (Object[]) results.get(r);
+            if (expected == null) {
+                assertNull(actual);
+                continue;
+            }
+            // the accuracy bound documented by TTestStreamingEvaluator
+            for (int f = 0; f < 2; f++) {
+                double e = ((DoubleWritable) expected[f]).get();
+                assertEquals(e, ((DoubleWritable) actual[f]).get(), Math.abs(e) * 1E-6 + 1E-12);
+            }
+        }
+    }
+
+    private static void collect(List<Object> results, Object out) {
+        if (out != null) {
+            results.add(out == ISupportStreamingModeForWindowing.NULL_RESULT ? null : out);
+        }
+    }
+}
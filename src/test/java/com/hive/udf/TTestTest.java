@@ -0,0 +1,124 @@
+package com.hive.udf;
+
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDAFEvaluator;
+import org.apache.hadoop.hive.serde2.io.DoubleWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.Text;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class TTestTest {
+    @Test
+    public void testBinaryPartial() throws HiveException {
+        ObjectInspector[] inputOIs = {
+                PrimitiveObjectInspectorFactory.javaLongObjectInspector,
+                PrimitiveObjectInspectorFactory.javaDoubleObjectInspector};
+        ObjectInspector[] binaryInputOIs = {inputOIs[0], inputOIs[1],
+                PrimitiveObjectInspectorFactory.getPrimitiveWritableConstantObjectInspector(
+                        TypeInfoFactory.stringTypeInfo, new Text("binary"))};
+
+        GenericUDAFEvaluator struct = new TTest.TTestGenericEvaluator();
+        ObjectInspector structOI = struct.init(GenericUDAFEvaluator.Mode.PARTIAL1, inputOIs);
+        GenericUDAFEvaluator binary = new TTest.TTestGenericEvaluator();
+        ObjectInspector binaryOI = binary.init(GenericUDAFEvaluator.Mode.PARTIAL1, binaryInputOIs);
+        assertEquals("binary", binaryOI.getTypeName());
+
+        GenericUDAFEvaluator structFinal = new TTest.TTestGenericEvaluator();
+        structFinal.init(GenericUDAFEvaluator.Mode.FINAL, new ObjectInspector[]{structOI});
+        GenericUDAFEvaluator binaryFinal = new TTest.TTestGenericEvaluator();
+        binaryFinal.init(GenericUDAFEvaluator.Mode.FINAL, new ObjectInspector[]{binaryOI});
+        GenericUDAFEvaluator.AggregationBuffer structFinalAgg = structFinal.getNewAggregationBuffer();
+        GenericUDAFEvaluator.AggregationBuffer binaryFinalAgg = binaryFinal.getNewAggregationBuffer();
+
+        // Three partials, the second one without x
+        Random random = new Random(3);
+        for (int p = 0; p < 3; p++) {
+            GenericUDAFEvaluator.AggregationBuffer structAgg = struct.getNewAggregationBuffer();
+            GenericUDAFEvaluator.AggregationBuffer binaryAgg = binary.getNewAggregationBuffer();
+            for (int i = 0; i < 100; i++) {
+                Object[] row = {(long) random.nextInt(1000), p == 1 ? null : 500 + 100 * random.nextGaussian()};
+                struct.iterate(structAgg, row);
+                // with the options argument, as Hive passes it
+                binary.iterate(binaryAgg, new Object[]{row[0], row[1], new Text("binary")});
+            }
+
+            BytesWritable bytes = (BytesWritable) binary.terminatePartial(binaryAgg);
+            assertEquals(48, bytes.getLength());
+            structFinal.merge(structFinalAgg, ObjectInspectorUtils.copyToStandardObject(
+                    struct.terminatePartial(structAgg), structOI));
+            binaryFinal.merge(binaryFinalAgg, new BytesWritable(bytes.copyBytes()));
+        }
+
+        Object[] expected = (Object[]) structFinal.terminate(structFinalAgg);
+        Object[] actual = (Object[]) binaryFinal.terminate(binaryFinalAgg);
+        for (int f = 0; f < 2; f++) {
+            assertEquals(((DoubleWritable) expected[f]).get(), ((DoubleWritable) actual[f]).get(), 0);
+        }
+    }
+
+    @Test
+    public void testVariants() throws HiveException {
+        ObjectInspector[] inputOIs = {
+                PrimitiveObjectInspectorFactory.javaDoubleObjectInspector,
+                PrimitiveObjectInspectorFactory.javaDoubleObjectInspector};
+        org.apache.commons.math3.stat.inference.TTest reference = new org.apache.commons.math3.stat.inference.TTest();
+
+        Random random = new Random(9);
+        int n = 50;
+        double[] y = new double[n];
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = 10 + random.nextGaussian();
+            y[i] = x[i] + 0.3 + 0.5 * random.nextGaussian();
+        }
+
+        Object[] pooled = run(new TTest.TTestPooledEvaluator(), inputOIs, y, x);
+        assertEquals(Math.abs(reference.homoscedasticT(y, x)), ((DoubleWritable) pooled[0]).get(), 1E-9);
+        assertEquals(reference.homoscedasticTTest(y, x), ((DoubleWritable) pooled[1]).get(), 1E-9);
+
+        Object[] paired = run(new TTestPaired.Evaluator(), inputOIs, y, x);
+        assertEquals(Math.abs(reference.pairedT(y, x)), ((DoubleWritable) paired[0]).get(), 1E-9);
+        assertEquals(reference.pairedTTest(y, x), ((DoubleWritable) paired[1]).get(), 1E-9);
+
+        double[] mu = new double[n];
+        Arrays.fill(mu, 10.2);
+        Object[] oneSample = run(new TTestOneSample.Evaluator(), inputOIs, x, mu);
+        assertEquals(Math.abs(reference.t(10.2, x)), ((DoubleWritable) oneSample[0]).get(), 1E-9);
+        assertEquals(reference.tTest(10.2, x), ((DoubleWritable) oneSample[1]).get(), 1E-9);
+    }
+
+    /**
+     * Aggregate the rows in two partials merged in FINAL mode.
+     */
+    private static Object[] run(GenericUDAFEvaluator partial, ObjectInspector[] inputOIs,
+                                double[] first, double[] second) throws HiveException {
+        ObjectInspector partialOI = partial.init(GenericUDAFEvaluator.Mode.PARTIAL1, inputOIs);
+        GenericUDAFEvaluator.AggregationBuffer[] aggs = {
+                partial.getNewAggregationBuffer(), partial.getNewAggregationBuffer()};
+        for (int i = 0; i < first.length; i++) {
+            partial.iterate(aggs[i % 2], new Object[]{first[i], second[i]});
+        }
+
+        GenericUDAFEvaluator merger;
+        try {
+            merger = partial.getClass().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new HiveException(e);
+        }
+        merger.init(GenericUDAFEvaluator.Mode.FINAL, new ObjectInspector[]{partialOI});
+        GenericUDAFEvaluator.AggregationBuffer agg = merger.getNewAggregationBuffer();
+        for (GenericUDAFEvaluator.AggregationBuffer a : aggs) {
+            merger.merge(agg, ObjectInspectorUtils.copyToStandardObject(partial.terminatePartial(a), partialOI));
+        }
+        return (Object[]) merger.terminate(agg);
+    }
+}